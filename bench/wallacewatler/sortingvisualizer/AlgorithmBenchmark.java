@@ -0,0 +1,127 @@
+package wallacewatler.sortingvisualizer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the built-in algorithms with step gating disabled, using {@code Arrays.sort} as a reference line. Algorithms
+ * run raw by default; {@code -p instrumented=true} measures them with metrics counting, to see what counting costs.
+ * The input is copied into a work array on every invocation, which is included in the score of every algorithm alike.
+ * The parallel algorithms use every available processor, and start a new pool on every invocation, as they do in the
+ * visualizer.
+ * <p>
+ * The default grid is kept short, to compare the algorithms in about a quarter of an hour: one fork and three
+ * one-second iterations, on inputs that take every algorithm near its typical case. Add {@code -f 2 -wi 5 -i 5} for
+ * tighter error bars. The slow and disk-bound cases are left out and opted into with {@code -p}:
+ * <ul>
+ *     <li>{@code BubbleSort}, {@code SelectionSort} and {@code InsertionSort} are quadratic, and would take longer than
+ *     the rest of the grid put together at 100,000 elements, so measure them at small sizes, e.g.
+ *     {@code -p n=1000,10000 -p algorithm=BubbleSort,SelectionSort,InsertionSort,ArraysSort}.</li>
+ *     <li>{@code ExternalMergeSort} writes its runs to temporary files, so it measures the disk more than the
+ *     algorithm, e.g. {@code -p algorithm=ExternalMergeSort,ArraysSort}.</li>
+ *     <li>The {@code misplaced}, {@code sorted}, {@code zipf}, {@code sawtooth} and {@code organ-pipe} distributions
+ *     cover the remaining cases, and organ pipes make the middle-pivot quicksorts quadratic, e.g.
+ *     {@code -p distribution=organ-pipe -p algorithm=QuickSort,IntroSort,PdqSort}.</li>
+ * </ul>
+ * Each option can be combined with the others, and passed several times to give several values, e.g.
+ * {@code java -jar target/benchmarks.jar AlgorithmBenchmark -p n=1000000 -p algorithm=QuickSort,ArraysSort}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class AlgorithmBenchmark {
+    @Param({
+            "AmericanFlagSort",
+            "ArraysSort",
+            "BinaryQuickSort",
+            "CombSort",
+            "CountingSort",
+            "DualPivotQuickSort",
+            "IntroSort",
+            "KeyedMergeSort",
+            "KeyedQuickSort",
+            "LsdRadixSort",
+            "MsdRadixSort",
+            "ParallelMergeSort",
+            "ParallelQuickSort",
+            "ParallelSampleSort",
+            "PdqSort",
+            "QuickInsertSort",
+            "QuickShellSort",
+            "QuickSort",
+            "ShellSort"
+    })
+    public String algorithm;
+
+    @Param({"1000", "100000"})
+    public int n;
+
+    @Param({"random", "nearly-sorted", "reversed", "few-unique"})
+    public String distribution;
+
+    @Param({"false"})
+    public boolean instrumented;
+
+    private Algorithm alg;
+    private int[] input;
+    private int[] work;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        alg = create(algorithm);
+        if(alg != null) {
+            alg.setUnthrottled(true);
+            alg.setRaw(!instrumented);
+        }
+
+        input = new int[n];
+        InputDistributions.fromLabel(distribution).generate(input, 0);
+        work = new int[n];
+    }
+
+    @Benchmark
+    public int[] sort() {
+        System.arraycopy(input, 0, work, 0, n);
+        if(alg == null) {
+            Arrays.sort(work);
+        } else {
+            alg.reset();
+            alg.run(work);
+        }
+        return work;
+    }
+
+    static Algorithm create(String name) {
+        return switch(name) {
+            case "AmericanFlagSort" -> new AmericanFlagSort(8);
+            case "ArraysSort" -> null;
+            case "BinaryQuickSort" -> new BinaryQuickSort();
+            case "BubbleSort" -> new BubbleSort();
+            case "CombSort" -> new CombSort(1.3);
+            case "CountingSort" -> new CountingSort();
+            case "DualPivotQuickSort" -> new DualPivotQuickSort(16);
+            case "ExternalMergeSort" -> new ExternalMergeSort(1 << 12, 8);
+            case "InsertionSort" -> new InsertionSort();
+            case "IntroSort" -> new IntroSort(16);
+            case "KeyedMergeSort" -> new KeyedMergeSort(KeyedAlgorithm.KeyType.DOUBLE);
+            case "KeyedQuickSort" -> new KeyedQuickSort(KeyedAlgorithm.KeyType.LONG);
+            case "LsdRadixSort" -> new LsdRadixSort(8);
+            case "MsdRadixSort" -> new MsdRadixSort(8);
+            case "ParallelMergeSort" -> new ParallelMergeSort(Runtime.getRuntime().availableProcessors(), 1 << 12);
+            case "ParallelQuickSort" -> new ParallelQuickSort(Runtime.getRuntime().availableProcessors(), 1 << 12);
+            case "ParallelSampleSort" -> new ParallelSampleSort(Runtime.getRuntime().availableProcessors(), 4, 1 << 12);
+            case "PdqSort" -> new PdqSort(24, 128);
+            case "QuickInsertSort" -> new QuickInsertSort(10);
+            case "QuickShellSort" -> new QuickShellSort(100, 2.25);
+            case "QuickSort" -> new QuickSort();
+            case "SelectionSort" -> new SelectionSort();
+            case "ShellSort" -> new ShellSort(2.25);
+            default -> throw new IllegalArgumentException("Unknown algorithm " + name);
+        };
+    }
+}
@@ -0,0 +1,162 @@
+package wallacewatler.sortingvisualizer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sweeps the cutoff parameters of the quicksort hybrids, running them raw. Each hybrid has its own parameter state, so
+ * only its own parameters are expanded, e.g.
+ * {@code java -jar target/benchmarks.jar HybridTuningBenchmark.quickShellSort -p maxElementsForShell=50,100}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class HybridTuningBenchmark {
+    @State(Scope.Thread)
+    public static class Input {
+        @Param({"100000"})
+        public int n;
+
+        @Param({"random", "nearly-sorted", "organ-pipe"})
+        public String distribution;
+
+        int[] input;
+        int[] work;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            input = new int[n];
+            InputDistributions.fromLabel(distribution).generate(input, 0);
+            work = new int[n];
+        }
+
+        int[] copy() {
+            System.arraycopy(input, 0, work, 0, n);
+            return work;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class QuickInsertParams {
+        @Param({"4", "8", "16", "32", "64"})
+        public int maxElementsForInsertion;
+
+        QuickInsertSort algorithm;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            algorithm = new QuickInsertSort(maxElementsForInsertion);
+            algorithm.setUnthrottled(true);
+            algorithm.setRaw(true);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class QuickShellParams {
+        @Param({"25", "50", "100", "200", "400"})
+        public int maxElementsForShell;
+
+        @Param({"1.8", "2.25", "2.8"})
+        public double shrink;
+
+        QuickShellSort algorithm;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            algorithm = new QuickShellSort(maxElementsForShell, shrink);
+            algorithm.setUnthrottled(true);
+            algorithm.setRaw(true);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class IntroParams {
+        @Param({"8", "16", "32"})
+        public int maxElementsForInsertion;
+
+        IntroSort algorithm;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            algorithm = new IntroSort(maxElementsForInsertion);
+            algorithm.setUnthrottled(true);
+            algorithm.setRaw(true);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class DualPivotParams {
+        @Param({"8", "16", "32", "47"})
+        public int maxElementsForInsertion;
+
+        DualPivotQuickSort algorithm;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            algorithm = new DualPivotQuickSort(maxElementsForInsertion);
+            algorithm.setUnthrottled(true);
+            algorithm.setRaw(true);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PdqParams {
+        @Param({"12", "24", "48"})
+        public int maxElementsForInsertion;
+
+        @Param({"64", "128", "256"})
+        public int minElementsForNinther;
+
+        PdqSort algorithm;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            algorithm = new PdqSort(maxElementsForInsertion, minElementsForNinther);
+            algorithm.setUnthrottled(true);
+            algorithm.setRaw(true);
+        }
+    }
+
+    @Benchmark
+    public int[] quickInsertSort(Input input, QuickInsertParams params) {
+        final int[] work = input.copy();
+        params.algorithm.reset();
+        params.algorithm.run(work);
+        return work;
+    }
+
+    @Benchmark
+    public int[] quickShellSort(Input input, QuickShellParams params) {
+        final int[] work = input.copy();
+        params.algorithm.reset();
+        params.algorithm.run(work);
+        return work;
+    }
+
+    @Benchmark
+    public int[] introSort(Input input, IntroParams params) {
+        final int[] work = input.copy();
+        params.algorithm.reset();
+        params.algorithm.run(work);
+        return work;
+    }
+
+    @Benchmark
+    public int[] dualPivotQuickSort(Input input, DualPivotParams params) {
+        final int[] work = input.copy();
+        params.algorithm.reset();
+        params.algorithm.run(work);
+        return work;
+    }
+
+    @Benchmark
+    public int[] pdqSort(Input input, PdqParams params) {
+        final int[] work = input.copy();
+        params.algorithm.reset();
+        params.algorithm.run(work);
+        return work;
+    }
+}
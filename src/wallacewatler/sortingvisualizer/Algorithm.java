@@ -1,117 +1,161 @@
 package wallacewatler.sortingvisualizer;
 
-import java.util.concurrent.Semaphore;
-
 /**
  * An algorithm to be visualized. It operates on an array of integers.
  */
-public abstract class Algorithm {
+public abstract class Algorithm extends Instrumented {
     /** The display name of this algorithm. */
     public final String name;
-    /** The metrics of this algorithm. */
-    public final Metrics metrics = new Metrics();
-    private final Semaphore stepPermits = new Semaphore(0);
 
     /**
      * Define a new algorithm.
      * @param name the display name of this algorithm
      */
     public Algorithm(String name) {
+        this(name, new Metrics(), new StepGate());
+    }
+
+    /**
+     * Define an algorithm that counts into the given metrics and takes its steps from the given gate, so that it can
+     * run alongside other algorithms sharing them.
+     */
+    Algorithm(String name, Metrics metrics, StepGate stepGate) {
+        super(metrics, stepGate);
         this.name = name;
     }
 
-    final void reset() {
-        metrics.clear();
-        stepPermits.drainPermits();
+    /**
+     * @return this algorithm, whose points of interest are published along with its writes
+     */
+    @Override
+    Algorithm highlightSource() {
+        return this;
     }
 
-    final void step(int count) {
-        stepPermits.release(count);
+    /**
+     * Execute the algorithm on the array given to {@code trackWrites()}, publishing the final state of the array once
+     * the algorithm returns.
+     */
+    final void run() {
+        try {
+            if(trackedSortable() != null)
+                run(trackedSortable());
+            else
+                run(trackedArray());
+        } finally {
+            publish();
+        }
     }
 
     /**
-     * The visualization calls this method to determine the color for the given array index.
-     * @param index an array index
-     * @return true if the given index should be highlighted in the visualization
+     * Execute the algorithm on an array. Accesses to this array are counted as main array accesses, and accesses to any
+     * other array as auxiliary array accesses.
+     * @param arr the main array
      */
-    public boolean isPointOfInterest(int index) {
-        return false;
+    final void run(int[] arr) {
+        useMainArray(arr);
+        execute(arr);
     }
 
     /**
-     * The procedure that will be visualized. This is where the algorithm implementation should go. The visualization
-     * will respond to changes in the input array. If the procedure is interrupted, it should stop executing and return.
-     * The metrics can optionally be updated during execution.
-     * @param arr the input array
-     * @see Metrics
+     * Execute the algorithm on an array that may be off the heap. Arrays on the heap are run like {@code run(int[])}.
+     * @param arr the main array
+     * @throws UnsupportedOperationException if the array is off the heap and this is not a
+     *                                       {@link SortableArrayAlgorithm}
      */
-    protected abstract void execute(int[] arr);
+    final void run(SortableArray arr) {
+        if(arr instanceof SortableArray.HeapArray heap) {
+            run(heap.array());
+            return;
+        }
+        useMainSortable(arr);
+        executeOffHeap(arr);
+    }
 
     /**
-     * Wait for a step permit. If step permits are available, this will immediately return and consume one step permit.
-     * If no step permits are available, this will block the current thread until either a step permit becomes available
-     * or the thread is interrupted.
-     * <p>
-     * This is used to break up the algorithm execution in order to animate it. This should be called from within
-     * {@code execute()}, typically right before a "step" of the algorithm (the exact meaning of a step is up to the
-     * implementer).
-     * @throws InterruptedException if the current thread is interrupted
+     * Execute the algorithm on an array off the heap. Only a {@link SortableArrayAlgorithm} can do this.
      */
-    protected final void awaitStep() throws InterruptedException {
-        stepPermits.acquire();
+    void executeOffHeap(SortableArray arr) {
+        throw new UnsupportedOperationException(name + " can only sort arrays on the heap");
     }
 
-    /*
-    TODO: These input arrays could either be the main array or an auxiliary array, but currently the main array metrics
-          are incremented.
+    final void step(int count) {
+        stepGate().release(count);
+    }
+
+    final int availableSteps() {
+        return stepGate().available();
+    }
+
+    final void drainSteps() {
+        stepGate().drain();
+    }
+
+    /**
+     * Make every thread taking steps from this algorithm's gate fail its next claim as if interrupted, until the next
+     * {@code reset()}. This stops threads that cannot be interrupted directly, such as pool workers.
      */
+    final void cancelSteps() {
+        stepGate().cancel();
+    }
+
     /**
-     * Convenience method to swap two elements of an array. This will increase the number of swaps, main array reads,
-     * and main array writes.
-     * @param arr an array
-     * @param i index of the first element
-     * @param j index of the second element
+     * @param maxClaim the maximum number of steps the algorithm may take in a row without checking back with the pacer
      */
-    protected final void swap(int[] arr, int i, int j) {
-        final int temp = get(arr, i);
-        set(arr, i, get(arr, j));
-        set(arr, j, temp);
-        metrics.numSwaps++;
+    final void setMaxStepClaim(int maxClaim) {
+        stepGate().setMaxClaim(maxClaim);
     }
 
     /**
-     * Convenience method to get an element of an array. This will increment the number of main array reads.
-     * @param arr an array
-     * @param i index of the element to get
-     * @return the element at index {@code i}
+     * @return the maximum number of steps the algorithm may take in a row without checking back with the pacer
      */
-    protected final int get(int[] arr, int i) {
-        metrics.numMainArrayReads++;
-        return arr[i];
+    final int maxStepClaim() {
+        return stepGate().maxClaim();
     }
 
     /**
-     * Convenience method to set an element of an array. This will increment the number of main array writes.
-     * @param arr an array
-     * @param i index to place {@code value} in
-     * @param value the element to put at index {@code i}
+     * When unthrottled, {@code awaitStep()} never blocks and only periodically checks for interruption. This is used to
+     * run the algorithm at full speed outside the visualizer.
+     */
+    final void setUnthrottled(boolean unthrottled) {
+        stepGate().setUnlimited(unthrottled);
+    }
+
+    /**
+     * The visualization calls this method to determine the color for the given array index. By default, this checks
+     * whether the index is among {@code pointsOfInterest()}.
+     * @param index an array index
+     * @return true if the given index should be highlighted in the visualization
      */
-    protected final void set(int[] arr, int i, int value) {
-        metrics.numMainArrayWrites++;
-        arr[i] = value;
+    public boolean isPointOfInterest(int index) {
+        final int[] points = pointsOfInterest();
+        if(points == null)
+            return false;
+
+        for(int point : points) {
+            if(point == index)
+                return true;
+        }
+        return false;
     }
 
     /**
-     * Convenience method to compare two elements of an array. This will increment the number of comparisons and main
-     * array reads.
-     * @param arr an array
-     * @param i index of the first element
-     * @param j index of the second element
-     * @return a value less than zero, equal to zero, or greater than zero if element {@code i} is less than, equal to,
-     *         or greater than element {@code j}, respectively.
+     * The visualization calls this method to find the indices to highlight. Overriding this instead of
+     * {@code isPointOfInterest()} lets the visualization find them without asking about every index of the array.
+     * @return the array indices that should be highlighted in the visualization, or null if only
+     *         {@code isPointOfInterest()} is implemented
      */
-    protected final int compare(int[] arr, int i, int j) {
-        metrics.numComparisons++;
-        return get(arr, i) - get(arr, j);
+    public int[] pointsOfInterest() {
+        return null;
     }
+
+    /**
+     * The procedure that will be visualized. This is where the algorithm implementation should go. The visualization
+     * will respond to changes in the input array that are made through {@code set()}, {@code swap()}, or
+     * {@code copy()}. If the procedure is interrupted, it should stop executing and return. The metrics can optionally
+     * be updated during execution.
+     * @param arr the input array
+     * @see Metrics
+     */
+    protected abstract void execute(int[] arr);
 }
@@ -0,0 +1,63 @@
+package wallacewatler.sortingvisualizer;
+
+/**
+ * An in-place variant of MSD radix sort. After counting the digits of a range, elements are swapped straight into their
+ * buckets: the element at the next free position of a bucket is swapped to the next free position of the bucket it
+ * belongs in, until every bucket is full. Each bucket is then sorted by the next digit. Short buckets are finished with
+ * insertion sort, and a digit on which every element of a range agrees is skipped without moving anything.
+ * @see MsdRadixSort
+ */
+public class AmericanFlagSort extends RadixAlgorithm {
+    public AmericanFlagSort(int digitBits) {
+        super("American flag sort", digitBits);
+    }
+
+    @Override
+    protected void execute(SortableArray arr) {
+        i = j = -1;
+        if(arr.length() < 2)
+            return;
+
+        try {
+            sort(arr, 0, arr.length(), topShift());
+        } catch(InterruptedException e) {
+            return;
+        }
+    }
+
+    private void sort(SortableArray arr, int from, int to, int shift) throws InterruptedException {
+        if(to - from <= INSERTION_THRESHOLD) {
+            insertionSort(arr, from, to);
+            return;
+        }
+
+        final int[] counts = histogram(arr, from, to, shift);
+        final int[] starts = bucketStarts(counts, from);
+        if(get(counts, digit(get(arr, from), shift)) < to - from) {
+            final int[] next = starts.clone();
+            for(int b = 0; b < radix; b++) {
+                final int end = get(starts, b + 1);
+                while((i = get(next, b)) < end) {
+                    awaitStep();
+                    final int d = digit(get(arr, i), shift);
+                    if(d == b) {
+                        set(next, b, i + 1);
+                    } else {
+                        j = get(next, d);
+                        swap(arr, i, j);
+                        set(next, d, j + 1);
+                    }
+                }
+            }
+        }
+
+        if(shift == 0)
+            return;
+        for(int b = 0; b < radix; b++) {
+            final int start = get(starts, b);
+            final int end = get(starts, b + 1);
+            if(end - start > 1)
+                sort(arr, start, end, shift - digitBits);
+        }
+    }
+}
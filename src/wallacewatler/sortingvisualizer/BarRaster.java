@@ -0,0 +1,123 @@
+package wallacewatler.sortingvisualizer;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Draws the columns of an array as a bar chart directly into the pixel buffer of an image, so that a frame can be shown
+ * with a single blit instead of one fill per column. The image persists between frames, and only the columns whose
+ * height changed since the last frame are redrawn, along with the points of interest.
+ */
+final class BarRaster {
+    private static final int[] NO_POINTS = {};
+
+    final BufferedImage image;
+    private final int width;
+    private final int height;
+    private final int[] pixels;
+    /** The bar height in pixels of each pixel column, used when the whole image is redrawn. */
+    private final int[] pixelColumnHeights;
+    /** The bar height in pixels of each column as currently drawn. */
+    private int[] drawnHeights = NO_POINTS;
+    private ColumnModel columns;
+    private int pixelsPerColumn;
+    private SortingVisualizer.Aggregation aggregation;
+    private int background;
+    private int data;
+    /** The columns drawn in the point of interest color during the last frame. */
+    private int[] highlightedColumns = NO_POINTS;
+
+    BarRaster(int width, int height) {
+        this.width = width;
+        this.height = height;
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        pixelColumnHeights = new int[width];
+    }
+
+    /**
+     * Bring the image up to date with a frame. Values are scaled such that {@code columns.maxValue()} reaches the top
+     * of the image.
+     * @param columns the column model the frame was published by
+     * @param frame the frame to draw
+     * @param pixelsPerColumn the width of a column in pixels
+     * @param aggregation the column value to draw
+     * @param highlight whether to draw the points of interest of the frame
+     * @param background the RGB background color
+     * @param data the RGB color of the bars
+     * @param pointOfInterest the RGB color of highlighted bars
+     */
+    void draw(ColumnModel columns, ColumnModel.Frame frame, int pixelsPerColumn, SortingVisualizer.Aggregation aggregation,
+              boolean highlight, int background, int data, int pointOfInterest) {
+        final boolean settingsChanged = columns != this.columns || pixelsPerColumn != this.pixelsPerColumn
+                || aggregation != this.aggregation || background != this.background || data != this.data;
+        this.columns = columns;
+        this.pixelsPerColumn = pixelsPerColumn;
+        this.aggregation = aggregation;
+        this.background = background;
+        this.data = data;
+
+        if(settingsChanged) {
+            drawnHeights = new int[columns.numColumns];
+            for(int c = 0; c < columns.numColumns; c++)
+                drawnHeights[c] = barHeight(frame, c);
+            drawAll();
+        } else {
+            for(int c = 0; c < columns.numColumns; c++) {
+                final int barHeight = barHeight(frame, c);
+                if(barHeight != drawnHeights[c]) {
+                    drawnHeights[c] = barHeight;
+                    drawColumn(c, data);
+                }
+            }
+        }
+
+        for(int c : highlightedColumns)
+            drawColumn(c, data);
+
+        highlightedColumns = highlight ? frame.pointsOfInterest() : NO_POINTS;
+        for(int c : highlightedColumns)
+            drawColumn(c, pointOfInterest);
+    }
+
+    private int barHeight(ColumnModel.Frame frame, int column) {
+        final long value = frame.value(column, aggregation);
+        return (int) Math.min(height, Math.max(0, height * value / columns.maxValue()));
+    }
+
+    private void drawAll() {
+        final int numColumns = Math.min(columns.numColumns, (width + pixelsPerColumn - 1) / pixelsPerColumn);
+        Arrays.fill(pixelColumnHeights, 0);
+        for(int c = 0; c < numColumns; c++) {
+            final int barHeight = drawnHeights[c];
+            final int left = c * pixelsPerColumn;
+            final int right = Math.min(left + pixelsPerColumn, width);
+            for(int x = left; x < right; x++)
+                pixelColumnHeights[x] = barHeight;
+        }
+
+        // Fill row by row so that the pixel buffer is written sequentially
+        for(int y = 0; y < height; y++) {
+            final int threshold = height - y;
+            final int row = y * width;
+            for(int x = 0; x < width; x++)
+                pixels[row + x] = pixelColumnHeights[x] >= threshold ? data : background;
+        }
+    }
+
+    private void drawColumn(int column, int color) {
+        final long left = (long) column * pixelsPerColumn;
+        final int right = (int) Math.min(left + pixelsPerColumn, width);
+        if(left >= right)
+            return;
+
+        final int top = height - drawnHeights[column];
+        for(int y = 0; y < height; y++) {
+            final int c = y >= top ? color : background;
+            final int row = y * width;
+            for(int x = (int) left; x < right; x++)
+                pixels[row + x] = c;
+        }
+    }
+}
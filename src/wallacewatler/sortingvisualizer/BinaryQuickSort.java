@@ -1,14 +1,10 @@
 package wallacewatler.sortingvisualizer;
 
-import java.util.Arrays;
-import java.util.Deque;
-import java.util.LinkedList;
-
 /**
  * Sorts an array by recursively partitioning it in two. The pivot is chosen as the average of the minimum and maximum
- * values.
+ * values, and the values up to the pivot are moved before the values above it.
  */
-public class BinaryQuickSort extends Algorithm {
+public class BinaryQuickSort extends SortableArrayAlgorithm {
     private int i;
     private int j;
 
@@ -17,34 +13,42 @@ public class BinaryQuickSort extends Algorithm {
     }
 
     @Override
-    protected void execute(int[] arr) {
-        final Deque<Ply> plies = new LinkedList<>();
-        plies.push(new Ply(0, arr.length - 1, Arrays.stream(arr).min().orElse(0), Arrays.stream(arr).max().orElse(0)));
+    protected void execute(SortableArray arr) {
+        final PartitionStack partitions = new PartitionStack();
+        int lowest = Integer.MAX_VALUE;
+        int highest = Integer.MIN_VALUE;
+        for(int k = 0; k < arr.length(); k++) {
+            lowest = Math.min(lowest, arr.get(k));
+            highest = Math.max(highest, arr.get(k));
+        }
+        partitions.push(0, arr.length() - 1, lowest, highest);
 
-        while(!plies.isEmpty()) {
-            final Ply ply = plies.pop();
-            final int low = ply.low;
-            final int high = ply.high;
-            final int min = ply.min;
-            final int max = ply.max;
-            if(low < 0 || high < 0 || low >= high)
-                continue;
+        while(partitions.pop()) {
+            final int low = partitions.low;
+            final int high = partitions.high;
+            final int min = partitions.min;
+            final int max = partitions.max;
 
-            final int pivot = min + (max - min) / 2;
-            i = low - 1;
-            j = high + 1;
+            // The bounds need not be values in the range, so neither scan can rely on finding the pivot to stop it
+            final int pivot = (int) (((long) min + max) >> 1);
+            i = low;
+            j = high;
             while(true) {
-                do {
+                while(i <= j) {
                     try { awaitStep(); } catch(InterruptedException e) { return; }
-                    i++;
                     metrics.numComparisons++;
-                } while(get(arr, i) < pivot);
+                    if(get(arr, i) > pivot)
+                        break;
+                    i++;
+                }
 
-                do {
+                while(i <= j) {
                     try { awaitStep(); } catch(InterruptedException e) { return; }
-                    j--;
                     metrics.numComparisons++;
-                } while(get(arr, j) > pivot);
+                    if(get(arr, j) <= pivot)
+                        break;
+                    j--;
+                }
 
                 if(i >= j)
                     break;
@@ -52,15 +56,12 @@ public class BinaryQuickSort extends Algorithm {
                 try { awaitStep(); } catch(InterruptedException e) { return; }
                 swap(arr, i, j);
             }
-            plies.push(new Ply(j + 1, high, pivot, max));
-            plies.push(new Ply(low, j, min, pivot));
+            partitions.pushPartitions(low, j, high, min, pivot, max);
         }
     }
 
     @Override
-    public boolean isPointOfInterest(int index) {
-        return index == i || index == j;
+    public int[] pointsOfInterest() {
+        return new int[] {i, j};
     }
-
-    private record Ply(int low, int high, int min, int max) {}
 }
@@ -3,7 +3,7 @@ package wallacewatler.sortingvisualizer;
 /**
  * Sorts an array by repeatedly swapping adjacent elements that are out of order.
  */
-public class BubbleSort extends Algorithm {
+public class BubbleSort extends SortableArrayAlgorithm {
     private int n;
     private int newN;
     private int i;
@@ -13,8 +13,8 @@ public class BubbleSort extends Algorithm {
     }
 
     @Override
-    protected void execute(int[] arr) {
-        n = arr.length;
+    protected void execute(SortableArray arr) {
+        n = arr.length();
         while(n > 1) {
             newN = 0;
             i = 1;
@@ -31,7 +31,7 @@ public class BubbleSort extends Algorithm {
     }
 
     @Override
-    public boolean isPointOfInterest(int index) {
-        return index == i || index == newN || index == n;
+    public int[] pointsOfInterest() {
+        return new int[] {i, newN, n};
     }
 }
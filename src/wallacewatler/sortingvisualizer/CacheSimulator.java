@@ -0,0 +1,194 @@
+package wallacewatler.sortingvisualizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Simulates the data caches of a CPU, to estimate how well an algorithm's memory accesses use them. An algorithm given
+ * a simulator feeds it the address of every element its convenience methods access, and the hits and misses of each
+ * level are counted into its metrics. Comparisons and array accesses ignore locality, so these counts are a better
+ * predictor of real throughput when algorithms stride across memory differently.
+ * <p>
+ * Each level is set-associative with least recently used replacement. An access looks in the first level, then in each
+ * following level until one holds the line, and the line is brought into every level that missed. Reads and writes are
+ * treated alike. Every array is placed at its own page-aligned address the first time it is accessed, so arrays never
+ * share lines, as if each were allocated separately.
+ * <p>
+ * A simulator must only be used by one thread at a time, so accesses by the workers of a {@link ParallelAlgorithm} are
+ * not simulated.
+ */
+public final class CacheSimulator {
+    /** The most levels that can be simulated, since each has its own counters in {@link Metrics}. */
+    public static final int MAX_LEVELS = 3;
+    private static final int PAGE_BYTES = 4096;
+
+    private final List<Level> levels;
+    private final LevelState[] states;
+    /** The address of each array seen since the last {@code clear()}. */
+    private final Map<Object, Long> addresses = new WeakHashMap<>();
+    private long nextAddress;
+    /** The array accessed last and its address, to skip the map lookup on repeated accesses to the same array. */
+    private Object lastArray;
+    private long lastAddress;
+
+    /**
+     * @param levels the levels of the cache, from the closest to the CPU outwards
+     */
+    public CacheSimulator(List<Level> levels) {
+        if(levels.isEmpty() || levels.size() > MAX_LEVELS)
+            throw new IllegalArgumentException("Between 1 and " + MAX_LEVELS + " levels can be simulated");
+        this.levels = List.copyOf(levels);
+        states = new LevelState[levels.size()];
+        for(int l = 0; l < states.length; l++)
+            states[l] = new LevelState(levels.get(l));
+    }
+
+    /**
+     * @return the levels of a typical desktop CPU: 32 KB of L1 data cache, 512 KB of L2 and 8 MB of L3, with 64-byte
+     *         lines
+     */
+    public static List<Level> typicalLevels() {
+        return List.of(new Level(32 << 10, 64, 8), new Level(512 << 10, 64, 8), new Level(8 << 20, 64, 16));
+    }
+
+    /**
+     * Parse levels written as {@code size:lineSize:ways}, separated by commas, with sizes in bytes and optionally
+     * followed by {@code k} or {@code m}, e.g. {@code 32k:64:8,512k:64:8,8m:64:16}.
+     * @param spec the levels
+     * @return the parsed levels
+     */
+    public static List<Level> parseLevels(String spec) {
+        final List<Level> levels = new ArrayList<>();
+        for(String level : spec.split(",")) {
+            final String[] parts = level.trim().split(":");
+            if(parts.length != 3)
+                throw new IllegalArgumentException("Expected size:lineSize:ways, got " + level);
+            levels.add(new Level(parseBytes(parts[0]), parseBytes(parts[1]), Integer.parseInt(parts[2])));
+        }
+        return levels;
+    }
+
+    private static int parseBytes(String size) {
+        final String lower = size.toLowerCase(Locale.ROOT);
+        if(lower.endsWith("k"))
+            return Integer.parseInt(lower.substring(0, lower.length() - 1)) << 10;
+        if(lower.endsWith("m"))
+            return Integer.parseInt(lower.substring(0, lower.length() - 1)) << 20;
+        return Integer.parseInt(lower);
+    }
+
+    public List<Level> levels() {
+        return levels;
+    }
+
+    /**
+     * Empty every level and forget the addresses of all arrays, so that the next run starts with a cold cache.
+     */
+    public void clear() {
+        for(LevelState state : states)
+            state.clear();
+        addresses.clear();
+        nextAddress = 0;
+        lastArray = null;
+    }
+
+    /**
+     * Simulate an access to an element of an array, counting a hit or miss for each level it reaches into the metrics.
+     * @param array the array, which identifies it across accesses
+     * @param length the number of elements in the array
+     * @param i the index of the element
+     * @param elementBytes the size of an element
+     * @param metrics the metrics to count into
+     */
+    void access(Object array, int length, int i, int elementBytes, Metrics metrics) {
+        if(array != lastArray) {
+            Long address = addresses.get(array);
+            if(address == null) {
+                address = nextAddress;
+                final long bytes = (long) length * elementBytes;
+                nextAddress += (bytes + PAGE_BYTES - 1) / PAGE_BYTES * PAGE_BYTES;
+                addresses.put(array, address);
+            }
+            lastArray = array;
+            lastAddress = address;
+        }
+
+        final long address = lastAddress + (long) i * elementBytes;
+        for(int l = 0; l < states.length; l++) {
+            if(states[l].access(address)) {
+                metrics.countCacheHit(l);
+                return;
+            }
+            metrics.countCacheMiss(l);
+        }
+    }
+
+    /**
+     * The shape of one level of the cache.
+     * @param sizeBytes the capacity in bytes
+     * @param lineBytes the size of a line in bytes, a power of two
+     * @param ways the number of lines in each set
+     */
+    public record Level(int sizeBytes, int lineBytes, int ways) {
+        public Level {
+            if(lineBytes <= 0 || Integer.bitCount(lineBytes) != 1)
+                throw new IllegalArgumentException("The line size must be a power of two");
+            if(ways <= 0 || sizeBytes <= 0 || sizeBytes % ((long) lineBytes * ways) != 0)
+                throw new IllegalArgumentException("The size must be a multiple of the line size times the ways");
+            final int numSets = sizeBytes / lineBytes / ways;
+            if(Integer.bitCount(numSets) != 1)
+                throw new IllegalArgumentException("The number of sets must be a power of two");
+        }
+
+        /**
+         * @return the number of sets
+         */
+        public int numSets() {
+            return sizeBytes / lineBytes / ways;
+        }
+    }
+
+    /**
+     * The lines held by one level, as a tag per way of each set, with the ways of a set ordered from most to least
+     * recently used.
+     */
+    private static final class LevelState {
+        private final int lineShift;
+        private final int setMask;
+        private final int ways;
+        private final long[] lines;
+
+        LevelState(Level level) {
+            lineShift = Integer.numberOfTrailingZeros(level.lineBytes());
+            setMask = level.numSets() - 1;
+            ways = level.ways();
+            lines = new long[level.numSets() * ways];
+            clear();
+        }
+
+        void clear() {
+            Arrays.fill(lines, -1);
+        }
+
+        /**
+         * Look for the line of an address, and make it the most recently used line of its set, replacing the least
+         * recently used one if it was missing.
+         * @return true if the line was present
+         */
+        boolean access(long address) {
+            final long line = address >>> lineShift;
+            final int first = (int) (line & setMask) * ways;
+            int way = 0;
+            while(way < ways - 1 && lines[first + way] != line)
+                way++;
+            final boolean hit = lines[first + way] == line;
+            System.arraycopy(lines, first, lines, first + 1, way);
+            lines[first] = line;
+            return hit;
+        }
+    }
+}
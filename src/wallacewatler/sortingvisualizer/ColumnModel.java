@@ -0,0 +1,251 @@
+package wallacewatler.sortingvisualizer;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Groups the elements of an array into display columns and keeps the minimum, maximum, and sum of each column up to
+ * date as elements are written. This lets arrays far wider than the window be drawn without rescanning the array every
+ * frame.
+ * <p>
+ * The aggregates are owned by the thread writing the array. At step boundaries, where the array is in a consistent
+ * state, that thread publishes them together with the points of interest as a {@link Frame}. Frames are triple
+ * buffered: the writer fills a back frame and exchanges it with the shared middle frame, and the renderer exchanges
+ * its front frame with the middle frame whenever a newer one is available. Neither side ever waits for the other, and
+ * publishing only copies the columns that changed since the back frame was last published.
+ */
+final class ColumnModel {
+    private static final int[] NO_POINTS = {};
+
+    final int n;
+    final int elementsPerColumn;
+    final int numColumns;
+    private final SortableArray arr;
+    private final long[] sums;
+    private final int[] mins;
+    private final int[] maxs;
+    /** The generation in which each column last changed. */
+    private final long[] changedAt;
+    /** The generation of the frame currently being built by the writer. */
+    private long generation = 1;
+    private Frame back;
+    private final AtomicReference<Frame> middle;
+    private Frame front;
+    private volatile boolean publishRequested;
+
+    /**
+     * @param arr the array to aggregate
+     * @param elementsPerColumn the number of consecutive elements in each column
+     */
+    ColumnModel(int[] arr, int elementsPerColumn) {
+        this(SortableArray.of(arr), elementsPerColumn);
+    }
+
+    /**
+     * @param arr the array to aggregate, which may be off the heap
+     * @param elementsPerColumn the number of consecutive elements in each column
+     */
+    ColumnModel(SortableArray arr, int elementsPerColumn) {
+        this.arr = arr;
+        n = arr.length();
+        this.elementsPerColumn = elementsPerColumn;
+        numColumns = (int) (((long) n + elementsPerColumn - 1) / elementsPerColumn);
+        sums = new long[numColumns];
+        mins = new int[numColumns];
+        maxs = new int[numColumns];
+        changedAt = new long[numColumns];
+        back = new Frame(numColumns);
+        middle = new AtomicReference<>(new Frame(numColumns));
+        front = new Frame(numColumns);
+        rebuild();
+    }
+
+    /**
+     * Recompute every column and publish them. Call this after the array was changed without going through
+     * {@code written()}, while no algorithm is executing on it.
+     */
+    void rebuild() {
+        for(int c = 0; c < numColumns; c++) {
+            final int from = c * elementsPerColumn;
+            final int to = (int) Math.min((long) from + elementsPerColumn, n);
+            long sum = 0;
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for(int i = from; i < to; i++) {
+                final int value = arr.get(i);
+                sum += value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            sums[c] = sum;
+            mins[c] = min;
+            maxs[c] = max;
+            changedAt[c] = generation;
+        }
+        publish(null);
+    }
+
+    /**
+     * Update the column containing an element after it was written. The sum is adjusted directly. The minimum and
+     * maximum only need a rescan of the column when the element that held them was overwritten by a less extreme
+     * value, which on average happens once every {@code elementsPerColumn} writes.
+     * @param index the index that was written
+     * @param oldValue the element before the write
+     * @param newValue the element after the write
+     */
+    void written(int index, int oldValue, int newValue) {
+        final int c = index / elementsPerColumn;
+        sums[c] += newValue - (long) oldValue;
+
+        if(newValue >= maxs[c])
+            maxs[c] = newValue;
+        else if(oldValue == maxs[c])
+            rescan(c);
+
+        if(newValue <= mins[c])
+            mins[c] = newValue;
+        else if(oldValue == mins[c])
+            rescan(c);
+
+        changedAt[c] = generation;
+    }
+
+    /**
+     * @return true if the renderer asked for a frame since the last publication. This is cheap enough to check at every
+     *         step boundary.
+     */
+    boolean isPublishRequested() {
+        return publishRequested;
+    }
+
+    /**
+     * Publish the current state of the columns. Must be called by the thread writing the array, at a point where the
+     * array is consistent. If several threads write the array, they must hold the lock of this model while writing and
+     * publishing.
+     * @param algorithm the algorithm writing the array, to query for points of interest, or null for no highlights
+     */
+    void publish(Algorithm algorithm) {
+        publishRequested = false;
+        final Frame frame = back;
+        for(int c = 0; c < numColumns; c++) {
+            if(changedAt[c] > frame.generation) {
+                frame.mins[c] = mins[c];
+                frame.maxs[c] = maxs[c];
+                frame.means[c] = (int) (sums[c] / size(c));
+            }
+        }
+        frame.pointsOfInterest = algorithm == null ? NO_POINTS : findPointsOfInterest(algorithm);
+        frame.generation = generation++;
+        back = middle.getAndSet(frame);
+    }
+
+    /**
+     * Get the most recently published frame. Only the render thread may call this. The returned frame stays valid
+     * until the next call.
+     * @return the latest frame
+     */
+    Frame latestFrame() {
+        publishRequested = true;
+        if(middle.get().generation > front.generation)
+            front = middle.getAndSet(front);
+        return front;
+    }
+
+    /**
+     * @param index an element index
+     * @return the column containing the element
+     */
+    int column(int index) {
+        return index / elementsPerColumn;
+    }
+
+    /**
+     * @return the largest value an element is expected to have, which is drawn at the full height
+     */
+    long maxValue() {
+        return Math.max(1, n - 1);
+    }
+
+    private int size(int column) {
+        return Math.min(elementsPerColumn, n - column * elementsPerColumn);
+    }
+
+    private void rescan(int c) {
+        final int from = c * elementsPerColumn;
+        final int to = (int) Math.min((long) from + elementsPerColumn, n);
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for(int i = from; i < to; i++) {
+            final int value = arr.get(i);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        mins[c] = min;
+        maxs[c] = max;
+    }
+
+    /**
+     * @return the columns containing the algorithm's points of interest
+     */
+    private int[] findPointsOfInterest(Algorithm algorithm) {
+        final int[] points = algorithm.pointsOfInterest();
+        if(points != null) {
+            final int[] found = new int[points.length];
+            int count = 0;
+            for(int i : points) {
+                if(i >= 0 && i < n)
+                    found[count++] = column(i);
+            }
+            return Arrays.copyOf(found, count);
+        }
+
+        // The algorithm only answers per index, so every index has to be asked
+        int[] found = new int[4];
+        int count = 0;
+        for(int i = 0; i < n; i++) {
+            if(algorithm.isPointOfInterest(i)) {
+                if(count == found.length)
+                    found = Arrays.copyOf(found, count * 2);
+                found[count++] = column(i);
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * A consistent view of the columns at one step boundary.
+     */
+    static final class Frame {
+        private final int[] mins;
+        private final int[] maxs;
+        private final int[] means;
+        private int[] pointsOfInterest = NO_POINTS;
+        private long generation;
+
+        private Frame(int numColumns) {
+            mins = new int[numColumns];
+            maxs = new int[numColumns];
+            means = new int[numColumns];
+        }
+
+        /**
+         * @param column a column index
+         * @param aggregation how to combine the elements of the column
+         * @return the aggregated value of the column
+         */
+        int value(int column, SortingVisualizer.Aggregation aggregation) {
+            return switch(aggregation) {
+                case MIN -> mins[column];
+                case MAX -> maxs[column];
+                case MEAN -> means[column];
+            };
+        }
+
+        /**
+         * @return the columns containing points of interest
+         */
+        int[] pointsOfInterest() {
+            return pointsOfInterest;
+        }
+    }
+}
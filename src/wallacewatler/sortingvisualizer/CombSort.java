@@ -4,7 +4,7 @@ package wallacewatler.sortingvisualizer;
  * An improved version of bubble sort that starts with a large gap for element comparison and gradually reduces it.
  * @see BubbleSort
  */
-public class CombSort extends Algorithm {
+public class CombSort extends SortableArrayAlgorithm {
     public final double shrink;
     private int i;
     private int gap;
@@ -15,8 +15,8 @@ public class CombSort extends Algorithm {
     }
 
     @Override
-    protected void execute(int[] arr) {
-        gap = arr.length;
+    protected void execute(SortableArray arr) {
+        gap = arr.length();
         boolean sorted = false;
 
         while(!sorted) {
@@ -27,7 +27,7 @@ public class CombSort extends Algorithm {
             }
 
             i = 0;
-            while(i + gap < arr.length) {
+            while(i + gap < arr.length()) {
                 try { awaitStep(); } catch(InterruptedException e) { return; }
                 if(compare(arr, i, i + gap) > 0) {
                     swap(arr, i, i + gap);
@@ -39,7 +39,7 @@ public class CombSort extends Algorithm {
     }
 
     @Override
-    public boolean isPointOfInterest(int index) {
-        return index == i || index == i + gap;
+    public int[] pointsOfInterest() {
+        return new int[] {i, i + gap};
     }
 }
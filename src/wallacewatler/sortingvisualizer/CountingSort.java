@@ -0,0 +1,71 @@
+package wallacewatler.sortingvisualizer;
+
+/**
+ * Sorts an array by counting how many times each value occurs. The counts are turned into the position where each value
+ * ends, and the elements are placed into a buffer from the last to the first, so that equal elements keep their order,
+ * before being copied back. Takes linear time, but needs a count for every value between the minimum and the maximum,
+ * so it is only practical for dense values.
+ */
+public class CountingSort extends SortableArrayAlgorithm {
+    /** The most distinct values that can be counted, which is the longest array the heap can hold. */
+    private static final int MAX_RANGE = Integer.MAX_VALUE - 8;
+    private int i = -1;
+    private int j = -1;
+
+    public CountingSort() {
+        super("Counting sort");
+    }
+
+    @Override
+    protected void execute(SortableArray arr) {
+        final int n = arr.length();
+        i = j = -1;
+        if(n < 2)
+            return;
+
+        try {
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for(i = 0; i < n; i++) {
+                awaitStep();
+                final int value = get(arr, i);
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            if((long) max - min + 1 > MAX_RANGE)
+                throw new IllegalArgumentException("The elements span too many values to count");
+
+            final int[] counts = new int[max - min + 1];
+            for(i = 0; i < n; i++) {
+                awaitStep();
+                final int v = get(arr, i) - min;
+                set(counts, v, get(counts, v) + 1);
+            }
+            for(int v = 1; v < counts.length; v++) {
+                awaitStep();
+                set(counts, v, get(counts, v) + get(counts, v - 1));
+            }
+
+            final SortableArray buffer = allocateLike(arr, n);
+            for(i = n - 1; i >= 0; i--) {
+                awaitStep();
+                final int value = get(arr, i);
+                j = get(counts, value - min) - 1;
+                set(counts, value - min, j);
+                set(buffer, j, value);
+            }
+            j = -1;
+            for(i = 0; i < n; i++) {
+                awaitStep();
+                set(arr, i, get(buffer, i));
+            }
+        } catch(InterruptedException e) {
+            return;
+        }
+    }
+
+    @Override
+    public int[] pointsOfInterest() {
+        return new int[] {i, j};
+    }
+}
@@ -0,0 +1,108 @@
+package wallacewatler.sortingvisualizer;
+
+/**
+ * Yaroslavskiy's dual-pivot quicksort, which partitions around two pivots at once into elements less than the first,
+ * between the two, and greater than the second. The pivots are taken from a third and two thirds of the way through the
+ * range, so sorted inputs split evenly. When both pivots are equal, the middle partition holds only copies of them and is
+ * skipped. Like {@link IntroSort}, partitions nested too deep are sorted with heapsort, and small partitions with
+ * insertion sort.
+ */
+public class DualPivotQuickSort extends GuardedQuickSort {
+    private int k = -1;
+
+    public DualPivotQuickSort(int maxElementsForInsertion) {
+        super("Dual-pivot Quicksort", maxElementsForInsertion);
+    }
+
+    @Override
+    protected void execute(SortableArray arr) {
+        i = j = k = -1;
+        if(arr.length() < 2)
+            return;
+
+        try {
+            sort(arr, 0, arr.length() - 1, 2 * log2(arr.length()));
+        } catch(InterruptedException e) {
+            return;
+        }
+        k = -1;
+    }
+
+    private void sort(SortableArray arr, int low, int high, int depthLimit) throws InterruptedException {
+        while(high - low >= Math.max(maxElementsForInsertion, 2)) {
+            if(depthLimit-- == 0) {
+                heapSort(arr, low, high);
+                return;
+            }
+
+            final int third = (high - low) / 3;
+            awaitStep();
+            swap(arr, low, low + third);
+            swap(arr, high, high - third);
+            if(compare(arr, low, high) > 0)
+                swap(arr, low, high);
+            final int p = get(arr, low);
+            final int q = get(arr, high);
+
+            // [low + 1, i) is less than p, [j + 1, high) is greater than q, and [i, k) is in between
+            i = low + 1;
+            j = high - 1;
+            for(k = i; k <= j; k++) {
+                awaitStep();
+                final int value = get(arr, k);
+                metrics.numComparisons++;
+                if(value < p) {
+                    swap(arr, k, i++);
+                    continue;
+                }
+                metrics.numComparisons++;
+                if(value <= q)
+                    continue;
+
+                while(k < j) {
+                    awaitStep();
+                    metrics.numComparisons++;
+                    if(get(arr, j) <= q)
+                        break;
+                    j--;
+                }
+                swap(arr, k, j--);
+                metrics.numComparisons++;
+                if(get(arr, k) < p)
+                    swap(arr, k, i++);
+            }
+            final int lt = i - 1;
+            final int gt = j + 1;
+            awaitStep();
+            swap(arr, low, lt);
+            swap(arr, high, gt);
+
+            // Recurse into the two smaller partitions, and continue with the largest
+            final int left = lt - low;
+            final int middle = p == q ? 0 : gt - lt - 1;
+            final int right = high - gt;
+            if(left >= middle && left >= right) {
+                if(p != q)
+                    sort(arr, lt + 1, gt - 1, depthLimit);
+                sort(arr, gt + 1, high, depthLimit);
+                high = lt - 1;
+            } else if(middle >= right) {
+                sort(arr, low, lt - 1, depthLimit);
+                sort(arr, gt + 1, high, depthLimit);
+                low = lt + 1;
+                high = gt - 1;
+            } else {
+                sort(arr, low, lt - 1, depthLimit);
+                if(p != q)
+                    sort(arr, lt + 1, gt - 1, depthLimit);
+                low = gt + 1;
+            }
+        }
+        insertionSort(arr, low, high);
+    }
+
+    @Override
+    public int[] pointsOfInterest() {
+        return new int[] {i, j, k};
+    }
+}
@@ -0,0 +1,266 @@
+package wallacewatler.sortingvisualizer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sorts data on disk with only a bounded buffer in memory. The array being sorted stands for the disk: it is read into
+ * the buffer one run at a time, each run is sorted in memory and written back, and groups of up to {@code fanIn} runs
+ * are then merged with a heap, pass after pass, until one run is left. During a merge, the buffer is split into one
+ * block per input run plus one for the output, and blocks are refilled from and flushed to disk as they run out.
+ * <p>
+ * Merges alternate between the array and a scratch area of the same size. Runs are first written to whichever of the
+ * two makes the last merge land in the array. Every element moved between disk and memory is counted into
+ * {@code numDiskReads} or {@code numDiskWrites}, besides the array accesses it makes, so the cost of a smaller buffer
+ * or fan-in shows up as more disk traffic. The visualization highlights the run in the buffer while runs are formed,
+ * and the disk positions of every input run and of the output while merging.
+ * <p>
+ * Files larger than memory are sorted with {@code sortFile()}, which maps the file and a scratch file of the same size.
+ */
+public class ExternalMergeSort extends SortableArrayAlgorithm {
+    /** The number of elements that fit in memory at once. */
+    public final int bufferSize;
+    /** The most runs merged at once. */
+    public final int fanIn;
+    private final int[] buffer;
+    private final SortableArray bufferView;
+    /** The file to use as scratch space, if sorting a file. */
+    private Path scratchFile;
+    private int runFrom = -1;
+    private int runTo = -1;
+    /** The disk position of each input run of the current merge, followed by the output position. */
+    private int[] cursors = {};
+
+    /**
+     * @param bufferSize the number of elements that fit in memory at once
+     * @param fanIn the most runs merged at once, at least 2 and less than {@code bufferSize}
+     */
+    public ExternalMergeSort(int bufferSize, int fanIn) {
+        super("External merge sort - buffer " + bufferSize + ", fan-in " + fanIn);
+        if(fanIn < 2 || fanIn >= bufferSize)
+            throw new IllegalArgumentException("fanIn must be at least 2 and less than bufferSize");
+        this.bufferSize = bufferSize;
+        this.fanIn = fanIn;
+        buffer = new int[bufferSize];
+        bufferView = SortableArray.of(buffer);
+    }
+
+    /**
+     * Sort a file of {@code int}s in the native byte order in place, using a scratch file of the same size next to it.
+     * Only the buffer is held in memory; the operating system pages the files in and out as they are read and written.
+     * Must not be called while this algorithm is executing elsewhere.
+     * @param file the file to sort
+     * @param raw true to skip the instrumentation, so that only disk transfers are counted
+     * @throws IOException if a file could not be mapped or created
+     */
+    public final void sortFile(Path file, boolean raw) throws IOException {
+        final long length;
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            length = channel.size() / Integer.BYTES;
+        }
+        if(length > Integer.MAX_VALUE)
+            throw new IOException("Too many elements in " + file);
+
+        final OffHeapArray disk = OffHeapArray.map(file, (int) length);
+        final Path parent = file.toAbsolutePath().getParent();
+        scratchFile = Files.createTempFile(parent, file.getFileName().toString(), ".scratch");
+        try {
+            sort(disk, raw);
+            disk.force();
+        } finally {
+            Files.deleteIfExists(scratchFile);
+            scratchFile = null;
+        }
+    }
+
+    @Override
+    protected void execute(SortableArray disk) {
+        final int n = disk.length();
+        runFrom = runTo = -1;
+        cursors = new int[0];
+        if(n < 2)
+            return;
+
+        try {
+            final SortableArray scratch = createScratch(disk);
+            int passes = 0;
+            for(long runs = (n + (long) bufferSize - 1) / bufferSize; runs > 1; runs = (runs + fanIn - 1) / fanIn)
+                passes++;
+
+            SortableArray src = passes % 2 == 0 ? disk : scratch;
+            SortableArray dest = src == disk ? scratch : disk;
+            formRuns(disk, src, n);
+            runFrom = runTo = -1;
+
+            for(long runLength = bufferSize; runLength < n; runLength *= fanIn) {
+                for(long from = 0; from < n; from += runLength * fanIn)
+                    merge(src, dest, (int) from, (int) Math.min(from + runLength * fanIn, n), (int) runLength);
+                final SortableArray temp = src;
+                src = dest;
+                dest = temp;
+            }
+            cursors = new int[0];
+        } catch(InterruptedException e) {
+            return;
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private SortableArray createScratch(SortableArray disk) throws IOException {
+        if(scratchFile != null)
+            return OffHeapArray.map(scratchFile, disk.length());
+        return allocateLike(disk, disk.length());
+    }
+
+    /**
+     * Read the input one buffer at a time, sort each buffer, and write it out as a run.
+     */
+    private void formRuns(SortableArray input, SortableArray output, int n) throws InterruptedException {
+        for(int from = 0; from < n; from += bufferSize) {
+            runFrom = from;
+            runTo = Math.min(from + bufferSize, n);
+            final int length = runTo - from;
+            awaitStep();
+            readBlock(input, from, 0, length);
+            heapSort(length);
+            awaitStep();
+            writeBlock(0, output, from, length);
+        }
+    }
+
+    /**
+     * Sort the start of the buffer with heapsort, which needs no memory beyond the buffer.
+     */
+    private void heapSort(int length) throws InterruptedException {
+        for(int i = length / 2 - 1; i >= 0; i--)
+            siftDown(i, length);
+        for(int end = length - 1; end > 0; end--) {
+            awaitStep();
+            swap(buffer, 0, end);
+            siftDown(0, end);
+        }
+    }
+
+    private void siftDown(int i, int length) throws InterruptedException {
+        while(2 * i + 1 < length) {
+            awaitStep();
+            int child = 2 * i + 1;
+            if(child + 1 < length && compare(buffer, child + 1, child) > 0)
+                child++;
+            if(compare(buffer, i, child) >= 0)
+                return;
+            swap(buffer, i, child);
+            i = child;
+        }
+    }
+
+    /**
+     * Merge the consecutive runs of {@code [from, to)} of one disk area into the same range of another.
+     */
+    private void merge(SortableArray src, SortableArray dest, int from, int to, int runLength)
+            throws InterruptedException {
+        final int k = (int) Math.min(fanIn, ((long) to - from + runLength - 1) / runLength);
+        final int blockSize = bufferSize / (k + 1);
+        final int outStart = k * blockSize;
+        final int[] diskPos = new int[k];
+        final int[] diskEnd = new int[k];
+        final int[] bufPos = new int[k];
+        final int[] bufEnd = new int[k];
+        cursors = new int[k + 1];
+
+        // A heap of the runs that still have elements, ordered by the next element of each
+        final int[] heap = new int[k];
+        int heapSize = 0;
+        for(int r = 0; r < k; r++) {
+            diskPos[r] = from + r * runLength;
+            diskEnd[r] = (int) Math.min((long) diskPos[r] + runLength, to);
+            if(refill(src, r, blockSize, diskPos, diskEnd, bufPos, bufEnd)) {
+                heap[heapSize] = r;
+                siftUp(heap, heapSize++, bufPos);
+            }
+        }
+
+        int outPos = outStart;
+        int outDisk = from;
+        while(heapSize > 0) {
+            awaitStep();
+            final int r = heap[0];
+            set(buffer, outPos++, get(buffer, bufPos[r]++));
+            if(outPos == outStart + blockSize) {
+                writeBlock(outStart, dest, outDisk, blockSize);
+                outDisk += blockSize;
+                outPos = outStart;
+            }
+
+            if(bufPos[r] == bufEnd[r] && !refill(src, r, blockSize, diskPos, diskEnd, bufPos, bufEnd))
+                heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, bufPos);
+            for(int c = 0; c < k; c++)
+                cursors[c] = diskPos[c] - (bufEnd[c] - bufPos[c]);
+            cursors[k] = outDisk + outPos - outStart;
+        }
+        if(outPos > outStart)
+            writeBlock(outStart, dest, outDisk, outPos - outStart);
+    }
+
+    /**
+     * Read the next block of a run into its part of the buffer.
+     * @return false if the run has no elements left
+     */
+    private boolean refill(SortableArray src, int r, int blockSize, int[] diskPos, int[] diskEnd, int[] bufPos,
+                           int[] bufEnd) {
+        final int length = Math.min(blockSize, diskEnd[r] - diskPos[r]);
+        if(length == 0)
+            return false;
+        readBlock(src, diskPos[r], r * blockSize, length);
+        diskPos[r] += length;
+        bufPos[r] = r * blockSize;
+        bufEnd[r] = r * blockSize + length;
+        return true;
+    }
+
+    private void siftUp(int[] heap, int i, int[] bufPos) {
+        while(i > 0) {
+            final int parent = (i - 1) / 2;
+            if(compare(buffer, bufPos[heap[parent]], bufPos[heap[i]]) <= 0)
+                return;
+            Util.swap(heap, i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int heapSize, int[] bufPos) {
+        int i = 0;
+        while(2 * i + 1 < heapSize) {
+            int child = 2 * i + 1;
+            if(child + 1 < heapSize && compare(buffer, bufPos[heap[child + 1]], bufPos[heap[child]]) < 0)
+                child++;
+            if(compare(buffer, bufPos[heap[i]], bufPos[heap[child]]) <= 0)
+                return;
+            Util.swap(heap, i, child);
+            i = child;
+        }
+    }
+
+    private void readBlock(SortableArray disk, int diskPos, int bufPos, int length) {
+        copy(disk, diskPos, bufferView, bufPos, length);
+        metrics.numDiskReads += length;
+    }
+
+    private void writeBlock(int bufPos, SortableArray disk, int diskPos, int length) {
+        copy(bufferView, bufPos, disk, diskPos, length);
+        metrics.numDiskWrites += length;
+    }
+
+    @Override
+    public int[] pointsOfInterest() {
+        if(runFrom >= 0)
+            return new int[] {runFrom, runTo - 1};
+        return cursors.clone();
+    }
+}
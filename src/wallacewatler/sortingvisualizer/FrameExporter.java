@@ -0,0 +1,489 @@
+package wallacewatler.sortingvisualizer;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Renders a run of an algorithm to a PNG sequence or an animated GIF without opening a window. The algorithm executes
+ * as fast as it can, stopping every fixed number of steps to have a frame taken, so the output does not depend on the
+ * speed of the machine and takes only as long as sorting, rasterizing, and encoding.
+ * <p>
+ * A frame is taken on the executing thread when it runs out of step permits: the column values and points of interest
+ * are copied, and the algorithm is given the permits for the next frame. Copies are rasterized and encoded on a pool of
+ * threads, several frames at a time, and written out in order. GIF frames are LZW-compressed independently of each
+ * other by {@link GifEncoder}, so they are encoded in parallel just like PNG frames.
+ * <p>
+ * Workers of a {@link ParallelAlgorithm} claim one step at a time during an export, so a frame may be taken while
+ * other workers are in the middle of their current step.
+ * <p>
+ * This can be used as a library by creating an instance and calling {@code export()}, or from the command line:
+ * <pre>
+ * java wallacewatler.sortingvisualizer.FrameExporter --algorithm "Insertion sort" [--size 300] [--distribution random]
+ *         [--seed 0] [--width 1280] [--height 720] [--steps-per-frame 100] [--delay 40] [--threads 8]
+ *         --out insertion.gif
+ * java wallacewatler.sortingvisualizer.FrameExporter --trace run.svtrace --out frames/
+ * </pre>
+ * An output ending in {@code .gif} is written as an animated GIF; anything else is a directory to write numbered PNG
+ * files into.
+ */
+public final class FrameExporter {
+    /** Palette indices of the rasterized frames. */
+    private static final byte BACKGROUND = 0;
+    private static final byte DATA = 1;
+    private static final byte POINT_OF_INTEREST = 2;
+
+    private final int width;
+    private final int height;
+    private Format format = Format.GIF;
+    private int stepsPerFrame = 1000;
+    private int frameDelayMillis = 40;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private SortingVisualizer.Aggregation aggregation = SortingVisualizer.Aggregation.MEAN;
+    private Color backgroundColor = Color.DARK_GRAY;
+    private Color dataColor = Color.LIGHT_GRAY;
+    private Color pointOfInterestColor = Color.RED;
+
+    /**
+     * @param width the width of the frames in pixels
+     * @param height the height of the frames in pixels
+     */
+    public FrameExporter(int width, int height) {
+        if(width < 1 || height < 1 || width > 0xFFFF || height > 0xFFFF)
+            throw new IllegalArgumentException("Frames must be between 1 and 65535 pixels on each side");
+        this.width = width;
+        this.height = height;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public void setFormat(Format format) {
+        this.format = format;
+    }
+
+    public int getStepsPerFrame() {
+        return stepsPerFrame;
+    }
+
+    /**
+     * @param stepsPerFrame the number of steps the algorithm takes between frames
+     */
+    public void setStepsPerFrame(int stepsPerFrame) {
+        if(stepsPerFrame < 1)
+            throw new IllegalArgumentException("stepsPerFrame must be at least 1");
+        this.stepsPerFrame = stepsPerFrame;
+    }
+
+    public int getFrameDelayMillis() {
+        return frameDelayMillis;
+    }
+
+    /**
+     * @param frameDelayMillis how long each frame of a GIF is shown. GIF delays are in hundredths of a second, so this
+     *                         is rounded, and many viewers show delays below 20 milliseconds much slower.
+     */
+    public void setFrameDelayMillis(int frameDelayMillis) {
+        this.frameDelayMillis = frameDelayMillis;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @param threads the number of threads rasterizing and encoding frames
+     */
+    public void setThreads(int threads) {
+        if(threads < 1)
+            throw new IllegalArgumentException("threads must be at least 1");
+        this.threads = threads;
+    }
+
+    public SortingVisualizer.Aggregation getAggregation() {
+        return aggregation;
+    }
+
+    /**
+     * @param aggregation the value drawn for a column when it holds several elements
+     */
+    public void setAggregation(SortingVisualizer.Aggregation aggregation) {
+        this.aggregation = aggregation;
+    }
+
+    public Color getBackgroundColor() {
+        return backgroundColor;
+    }
+
+    public void setBackgroundColor(Color backgroundColor) {
+        this.backgroundColor = backgroundColor;
+    }
+
+    public Color getDataColor() {
+        return dataColor;
+    }
+
+    public void setDataColor(Color dataColor) {
+        this.dataColor = dataColor;
+    }
+
+    public Color getPointOfInterestColor() {
+        return pointOfInterestColor;
+    }
+
+    public void setPointOfInterestColor(Color pointOfInterestColor) {
+        this.pointOfInterestColor = pointOfInterestColor;
+    }
+
+    /**
+     * Execute an algorithm and write a frame every {@code stepsPerFrame} steps, plus one of the final state without
+     * highlights. The algorithm must not be running in a visualizer at the same time.
+     * @param algorithm the algorithm to run
+     * @param arr the array to run it on, which is sorted in place
+     * @param output the GIF file, or the directory of PNG files, to write
+     * @return the number of frames written
+     * @throws IOException if a frame could not be written
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    public int export(Algorithm algorithm, int[] arr, Path output) throws IOException, InterruptedException {
+        return export(algorithm, SortableArray.of(arr), output);
+    }
+
+    /**
+     * Execute an algorithm on an array that may be off the heap, writing frames like {@code export(Algorithm, int[],
+     * Path)}. Arrays off the heap can only be sorted by a {@link SortableArrayAlgorithm}.
+     * @param algorithm the algorithm to run
+     * @param arr the array to run it on, which is sorted in place
+     * @param output the GIF file, or the directory of PNG files, to write
+     * @return the number of frames written
+     * @throws IOException if a frame could not be written
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    public int export(Algorithm algorithm, SortableArray arr, Path output) throws IOException, InterruptedException {
+        final ColumnModel columns = new ColumnModel(arr, (int) Math.max(1, ((long) arr.length() + width - 1) / width));
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try(Sink sink = format == Format.GIF ? new GifSink(output) : new PngSink(output)) {
+            final Session session = new Session(algorithm, columns, pool, sink);
+            algorithm.reset();
+            // The algorithm may be shown in the visualizer again afterwards, which expects its own claim size
+            final int previousMaxClaim = algorithm.maxStepClaim();
+            algorithm.setMaxStepClaim(algorithm.concurrentWriters() ? 1 : stepsPerFrame);
+            algorithm.trackOffHeapWrites(arr, columns);
+            // The first claim finds no permits, so the first frame is taken right before the first step
+            algorithm.onStepsExhausted(session::onStepsExhausted);
+            try {
+                algorithm.run();
+            } finally {
+                algorithm.trackWrites(null, null);
+                algorithm.setMaxStepClaim(previousMaxClaim);
+            }
+            if(Thread.interrupted())
+                throw new InterruptedException();
+            session.takeFrame(false);
+            session.finish();
+            return session.frameCount;
+        } catch(UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Rasterize a frame into one palette index per pixel, row by row.
+     */
+    private byte[] rasterize(int pixelsPerColumn, int[] barHeights, int[] highlighted) {
+        final int[] pixelColumnHeights = new int[width];
+        final byte[] pixelColumnColors = new byte[width];
+        for(int c = 0; c < barHeights.length; c++) {
+            final long left = (long) c * pixelsPerColumn;
+            final int right = (int) Math.min(left + pixelsPerColumn, width);
+            for(int x = (int) left; x < right; x++) {
+                pixelColumnHeights[x] = barHeights[c];
+                pixelColumnColors[x] = DATA;
+            }
+        }
+        for(int c : highlighted) {
+            final long left = (long) c * pixelsPerColumn;
+            final int right = (int) Math.min(left + pixelsPerColumn, width);
+            for(int x = (int) left; x < right; x++)
+                pixelColumnColors[x] = POINT_OF_INTEREST;
+        }
+
+        final byte[] pixels = new byte[width * height];
+        for(int y = 0; y < height; y++) {
+            final int threshold = height - y;
+            final int row = y * width;
+            for(int x = 0; x < width; x++)
+                pixels[row + x] = pixelColumnHeights[x] >= threshold ? pixelColumnColors[x] : BACKGROUND;
+        }
+        return pixels;
+    }
+
+    private byte[] encodePng(byte[] pixels) throws IOException {
+        final byte[] r = new byte[3];
+        final byte[] g = new byte[3];
+        final byte[] b = new byte[3];
+        final Color[] palette = {backgroundColor, dataColor, pointOfInterestColor};
+        for(int p = 0; p < palette.length; p++) {
+            r[p] = (byte) palette[p].getRed();
+            g[p] = (byte) palette[p].getGreen();
+            b[p] = (byte) palette[p].getBlue();
+        }
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED,
+                new IndexColorModel(8, palette.length, r, g, b));
+        final byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        System.arraycopy(pixels, 0, data, 0, pixels.length);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * The state of one export.
+     */
+    private final class Session {
+        private final Algorithm algorithm;
+        private final ColumnModel columns;
+        private final int pixelsPerColumn;
+        private final ExecutorService pool;
+        private final Sink sink;
+        /** Frames being encoded, oldest first. Enough are kept in flight to keep every thread busy. */
+        private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        private final int maxPending;
+        private int frameCount;
+
+        private Session(Algorithm algorithm, ColumnModel columns, ExecutorService pool, Sink sink) {
+            this.algorithm = algorithm;
+            this.columns = columns;
+            pixelsPerColumn = Math.max(1, width / columns.numColumns);
+            this.pool = pool;
+            this.sink = sink;
+            maxPending = 2 * threads;
+        }
+
+        /**
+         * Runs on the executing thread, or on any worker of a parallel algorithm, when the step permits run out.
+         */
+        private synchronized void onStepsExhausted() {
+            // Another worker may have taken the frame and released the next permits already
+            if(algorithm.availableSteps() > 0)
+                return;
+            try {
+                takeFrame(true);
+            } catch(IOException e) {
+                throw new UncheckedIOException(e);
+            } catch(InterruptedException e) {
+                // Without new permits, the claim that called this fails on the interrupt
+                Thread.currentThread().interrupt();
+                return;
+            }
+            algorithm.step(stepsPerFrame);
+        }
+
+        private synchronized void takeFrame(boolean highlight) throws IOException, InterruptedException {
+            final int[] barHeights = new int[columns.numColumns];
+            final int[] highlighted;
+            // Workers of a parallel algorithm write the columns under this lock
+            synchronized(columns) {
+                columns.publish(highlight ? algorithm : null);
+                final ColumnModel.Frame frame = columns.latestFrame();
+                for(int c = 0; c < barHeights.length; c++) {
+                    final long value = frame.value(c, aggregation);
+                    barHeights[c] = (int) Math.min(height, Math.max(0, height * value / columns.maxValue()));
+                }
+                highlighted = frame.pointsOfInterest().clone();
+            }
+
+            final int delay = Math.max(0, Math.round(frameDelayMillis / 10f));
+            pending.add(pool.submit(() -> {
+                final byte[] pixels = rasterize(pixelsPerColumn, barHeights, highlighted);
+                return format == Format.GIF ? GifEncoder.encodeFrame(pixels, width, height, delay) : encodePng(pixels);
+            }));
+            while(!pending.isEmpty() && (pending.size() > maxPending || pending.peekFirst().isDone()))
+                writeOldest();
+        }
+
+        private void finish() throws IOException, InterruptedException {
+            while(!pending.isEmpty())
+                writeOldest();
+        }
+
+        private void writeOldest() throws IOException, InterruptedException {
+            final byte[] encoded;
+            try {
+                encoded = pending.removeFirst().get();
+            } catch(ExecutionException e) {
+                if(e.getCause() instanceof IOException cause)
+                    throw cause;
+                if(e.getCause() instanceof RuntimeException cause)
+                    throw cause;
+                if(e.getCause() instanceof Error cause)
+                    throw cause;
+                throw new IllegalStateException(e.getCause());
+            }
+            sink.write(frameCount++, encoded);
+        }
+    }
+
+    /**
+     * Where encoded frames go, in order.
+     */
+    private interface Sink extends AutoCloseable {
+        void write(int index, byte[] encoded) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private final class GifSink implements Sink {
+        private final OutputStream out;
+
+        private GifSink(Path file) throws IOException {
+            out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16);
+            GifEncoder.writeHeader(out, width, height, new int[] {backgroundColor.getRGB(), dataColor.getRGB(),
+                    pointOfInterestColor.getRGB()});
+        }
+
+        @Override
+        public void write(int index, byte[] encoded) throws IOException {
+            out.write(encoded);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                GifEncoder.writeTrailer(out);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    private static final class PngSink implements Sink {
+        private final Path directory;
+
+        private PngSink(Path directory) throws IOException {
+            this.directory = Files.createDirectories(directory);
+        }
+
+        @Override
+        public void write(int index, byte[] encoded) throws IOException {
+            Files.write(directory.resolve(String.format("frame-%06d.png", index)), encoded);
+        }
+
+        @Override
+        public void close() {}
+    }
+
+    /**
+     * The kind of output to write.
+     */
+    public enum Format {
+        /** A directory of PNG files named {@code frame-000000.png}, {@code frame-000001.png}, and so on. */
+        PNG,
+        /** A single animated GIF that loops forever. */
+        GIF
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String algorithmName = null;
+        Path trace = null;
+        Path out = null;
+        int size = 300;
+        InputDistribution distribution = InputDistributions.uniform();
+        long seed = 0;
+        int frameWidth = 1280;
+        int frameHeight = 720;
+        int stepsPerFrame = 100;
+        int delay = 40;
+        int threads = Runtime.getRuntime().availableProcessors();
+        SortingVisualizer.Aggregation aggregation = SortingVisualizer.Aggregation.MEAN;
+
+        for(int a = 0; a < args.length; a++) {
+            final String option = args[a];
+            if(a + 1 >= args.length)
+                throw new IllegalArgumentException("Missing value for " + option);
+
+            final String value = args[++a];
+            switch(option) {
+                case "--algorithm" -> algorithmName = value;
+                case "--trace" -> trace = Path.of(value);
+                case "--out" -> out = Path.of(value);
+                case "--size" -> size = Integer.parseInt(value);
+                case "--distribution" -> distribution = InputDistributions.fromLabel(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--width" -> frameWidth = Integer.parseInt(value);
+                case "--height" -> frameHeight = Integer.parseInt(value);
+                case "--steps-per-frame" -> stepsPerFrame = Integer.parseInt(value);
+                case "--delay" -> delay = Integer.parseInt(value);
+                case "--threads" -> threads = Integer.parseInt(value);
+                case "--aggregation" -> aggregation = SortingVisualizer.Aggregation.valueOf(value.toUpperCase(Locale.ROOT));
+                default -> throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+        if(out == null)
+            throw new IllegalArgumentException("Missing --out");
+        if((algorithmName == null) == (trace == null))
+            throw new IllegalArgumentException("Give exactly one of --algorithm and --trace");
+
+        final FrameExporter exporter = new FrameExporter(frameWidth, frameHeight);
+        exporter.setFormat(out.toString().toLowerCase(Locale.ROOT).endsWith(".gif") ? Format.GIF : Format.PNG);
+        exporter.setStepsPerFrame(stepsPerFrame);
+        exporter.setFrameDelayMillis(delay);
+        exporter.setThreads(threads);
+        exporter.setAggregation(aggregation);
+
+        final long start = System.nanoTime();
+        final int frames;
+        if(trace != null) {
+            try(TracePlayer player = new TracePlayer(trace)) {
+                frames = exporter.export(player, new int[player.arrayLength()], out);
+            }
+        } else {
+            final int[] input = new int[size];
+            distribution.generate(input, seed);
+            frames = exporter.export(findAlgorithm(algorithmName), input, out);
+        }
+        System.out.printf(Locale.ROOT, "Wrote %d frames to %s in %.2f s%n", frames, out,
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * @param name the full name of a built-in algorithm, or the start of exactly one name, ignoring case
+     */
+    private static Algorithm findAlgorithm(String name) {
+        final List<Algorithm> algorithms = Util.builtInAlgorithms();
+        final List<Algorithm> matches = new ArrayList<>();
+        for(Algorithm algorithm : algorithms) {
+            if(algorithm.name.equalsIgnoreCase(name))
+                return algorithm;
+            if(algorithm.name.toLowerCase(Locale.ROOT).startsWith(name.toLowerCase(Locale.ROOT)))
+                matches.add(algorithm);
+        }
+        if(matches.size() == 1)
+            return matches.get(0);
+        throw new IllegalArgumentException((matches.isEmpty() ? "No" : "More than one") + " algorithm named " + name
+                + "; the built-in algorithms are " + algorithms.stream().map(a -> a.name).toList());
+    }
+}
@@ -0,0 +1,169 @@
+package wallacewatler.sortingvisualizer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Writes animated GIFs with a global palette of up to four colors. Frames are encoded independently of each other, so
+ * that they can be encoded in parallel and then written in order.
+ */
+final class GifEncoder {
+    private static final int MIN_CODE_SIZE = 2;
+    private static final int CLEAR_CODE = 1 << MIN_CODE_SIZE;
+    private static final int END_CODE = CLEAR_CODE + 1;
+    private static final int MAX_CODES = 4096;
+
+    private GifEncoder() {}
+
+    /**
+     * Write the header of an animation that loops forever.
+     * @param palette up to four RGB colors, indexed by the pixels of the frames
+     */
+    static void writeHeader(OutputStream out, int width, int height, int[] palette) throws IOException {
+        out.write("GIF89a".getBytes());
+        writeShort(out, width);
+        writeShort(out, height);
+        // Global color table of 4 entries, 2 bits of color resolution
+        out.write(0x80 | (1 << 4) | 1);
+        out.write(0);
+        out.write(0);
+        for(int c = 0; c < 4; c++) {
+            final int rgb = c < palette.length ? palette[c] : 0;
+            out.write(rgb >> 16 & 0xFF);
+            out.write(rgb >> 8 & 0xFF);
+            out.write(rgb & 0xFF);
+        }
+        // Loop forever
+        out.write(new byte[] {0x21, (byte) 0xFF, 0x0B});
+        out.write("NETSCAPE2.0".getBytes());
+        out.write(new byte[] {0x03, 0x01, 0x00, 0x00, 0x00});
+    }
+
+    static void writeTrailer(OutputStream out) throws IOException {
+        out.write(0x3B);
+    }
+
+    /**
+     * Encode one frame, including its delay and image descriptor.
+     * @param pixels one palette index per pixel, row by row
+     * @param delayCentiseconds how long the frame is shown
+     * @return the encoded frame, to be written between the header and the trailer
+     */
+    static byte[] encodeFrame(byte[] pixels, int width, int height, int delayCentiseconds) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(pixels.length / 8 + 64);
+        // Graphic control extension
+        out.write(0x21);
+        out.write(0xF9);
+        out.write(4);
+        out.write(0);
+        out.write(delayCentiseconds & 0xFF);
+        out.write(delayCentiseconds >> 8 & 0xFF);
+        out.write(0);
+        out.write(0);
+        // Image descriptor, covering the whole screen
+        out.write(0x2C);
+        out.write(0);
+        out.write(0);
+        out.write(0);
+        out.write(0);
+        out.write(width & 0xFF);
+        out.write(width >> 8 & 0xFF);
+        out.write(height & 0xFF);
+        out.write(height >> 8 & 0xFF);
+        out.write(0);
+
+        out.write(MIN_CODE_SIZE);
+        new Lzw(out).encode(pixels);
+        out.write(0);
+        return out.toByteArray();
+    }
+
+    private static void writeShort(OutputStream out, int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write(value >> 8 & 0xFF);
+    }
+
+    /**
+     * Variable-length-code LZW, packed least significant bit first into sub-blocks of up to 255 bytes.
+     */
+    private static final class Lzw {
+        private final ByteArrayOutputStream out;
+        /** The code of each string extended by one pixel, indexed by {@code prefix * 4 + pixel}, or 0 if absent. */
+        private final int[] table = new int[MAX_CODES * 4];
+        private final byte[] block = new byte[255];
+        private int blockSize;
+        private int bits;
+        private int bitCount;
+        private int codeSize;
+        private int nextCode;
+
+        private Lzw(ByteArrayOutputStream out) {
+            this.out = out;
+        }
+
+        private void encode(byte[] pixels) {
+            reset();
+            emit(CLEAR_CODE);
+            if(pixels.length > 0) {
+                int prefix = pixels[0];
+                for(int p = 1; p < pixels.length; p++) {
+                    final int pixel = pixels[p];
+                    final int key = prefix * 4 + pixel;
+                    final int code = table[key];
+                    if(code != 0) {
+                        prefix = code;
+                        continue;
+                    }
+
+                    emit(prefix);
+                    if(nextCode == MAX_CODES) {
+                        emit(CLEAR_CODE);
+                        reset();
+                    } else {
+                        if(nextCode >= 1 << codeSize)
+                            codeSize++;
+                        table[key] = nextCode++;
+                    }
+                    prefix = pixel;
+                }
+                emit(prefix);
+            }
+            emit(END_CODE);
+            if(bitCount > 0)
+                writeByte(bits & 0xFF);
+            flushBlock();
+        }
+
+        private void reset() {
+            Arrays.fill(table, 0);
+            codeSize = MIN_CODE_SIZE + 1;
+            nextCode = END_CODE + 1;
+        }
+
+        private void emit(int code) {
+            bits |= code << bitCount;
+            bitCount += codeSize;
+            while(bitCount >= 8) {
+                writeByte(bits & 0xFF);
+                bits >>>= 8;
+                bitCount -= 8;
+            }
+        }
+
+        private void writeByte(int b) {
+            block[blockSize++] = (byte) b;
+            if(blockSize == block.length)
+                flushBlock();
+        }
+
+        private void flushBlock() {
+            if(blockSize == 0)
+                return;
+            out.write(blockSize);
+            out.write(block, 0, blockSize);
+            blockSize = 0;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package wallacewatler.sortingvisualizer;
+
+/**
+ * The shared parts of the quicksorts that guarantee {@code O(n log n)} time whatever the input, by falling back to
+ * heapsort when partitioning goes badly. Ranges are inclusive, as in {@link QuickSort}.
+ */
+abstract class GuardedQuickSort extends SortableArrayAlgorithm {
+    /** Partitions with at most this many elements are sorted with insertion sort. */
+    public final int maxElementsForInsertion;
+    int i = -1;
+    int j = -1;
+
+    GuardedQuickSort(String name, int maxElementsForInsertion) {
+        super(name);
+        if(maxElementsForInsertion < 0)
+            throw new IllegalArgumentException("maxElementsForInsertion must not be negative");
+        this.maxElementsForInsertion = maxElementsForInsertion;
+    }
+
+    /**
+     * @return the floor of the base 2 logarithm of a positive number
+     */
+    static int log2(int n) {
+        return 31 - Integer.numberOfLeadingZeros(n);
+    }
+
+    final void insertionSort(SortableArray arr, int low, int high) throws InterruptedException {
+        for(i = low + 1; i <= high; i++) {
+            awaitStep();
+            for(j = i; j > low && compare(arr, j, j - 1) < 0; j--) {
+                awaitStep();
+                swap(arr, j, j - 1);
+            }
+        }
+    }
+
+    final void heapSort(SortableArray arr, int low, int high) throws InterruptedException {
+        final int length = high - low + 1;
+        for(int k = length / 2 - 1; k >= 0; k--)
+            siftDown(arr, low, k, length);
+        for(int end = length - 1; end > 0; end--) {
+            awaitStep();
+            swap(arr, low, low + end);
+            siftDown(arr, low, 0, end);
+        }
+    }
+
+    private void siftDown(SortableArray arr, int offset, int k, int length) throws InterruptedException {
+        while(2 * k + 1 < length) {
+            awaitStep();
+            int child = 2 * k + 1;
+            if(child + 1 < length && compare(arr, offset + child + 1, offset + child) > 0)
+                child++;
+            i = offset + k;
+            j = offset + child;
+            if(compare(arr, i, j) >= 0)
+                return;
+            swap(arr, i, j);
+            k = child;
+        }
+    }
+
+    /**
+     * Order three elements, so that the median ends up at {@code b}.
+     */
+    final void sort3(SortableArray arr, int a, int b, int c) throws InterruptedException {
+        awaitStep();
+        if(compare(arr, b, a) < 0)
+            swap(arr, a, b);
+        if(compare(arr, c, b) < 0) {
+            swap(arr, b, c);
+            if(compare(arr, b, a) < 0)
+                swap(arr, a, b);
+        }
+    }
+
+    @Override
+    public int[] pointsOfInterest() {
+        return new int[] {i, j};
+    }
+}
@@ -0,0 +1,404 @@
+package wallacewatler.sortingvisualizer;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Runs algorithms at full speed without a visualization. Every algorithm is executed on every combination of array
+ * size and input distribution, and the wall time, throughput, and final metrics of each run are collected.
+ * <p>
+ * This can be used as a library by creating an instance and calling {@code run()}, or from the command line:
+ * <pre>
+ * java wallacewatler.sortingvisualizer.HeadlessRunner [--sizes 1000,100000] [--distributions random,zipf]
+ *         [--seed 42] [--time-limit 60] [--csv results.csv] [--trace traces/] [--raw true]
+ *         [--input-cache inputs/] [--input-cache-mb 4096] [--off-heap true] [--cache 32k:64:8,512k:64:8,8m:64:16]
+ * </pre>
+ */
+public final class HeadlessRunner {
+    private final List<Algorithm> algorithms = new ArrayList<>();
+    private int[] sizes = {1_000, 10_000, 100_000};
+    private InputDistribution[] distributions = InputDistributions.standard().toArray(new InputDistribution[0]);
+    private long seed = 0;
+    private double timeLimitSeconds = 60;
+    private Path traceDirectory;
+    private boolean raw;
+    private InputCache inputCache;
+    private boolean offHeap;
+    private List<CacheSimulator.Level> cacheLevels;
+
+    /**
+     * Create a new runner with the built-in algorithms included.
+     */
+    public HeadlessRunner() {
+        algorithms.addAll(Util.builtInAlgorithms());
+    }
+
+    /**
+     * Adds an algorithm to this runner.
+     * @param algorithm an algorithm to add
+     */
+    public void addAlgorithm(Algorithm algorithm) {
+        algorithms.add(algorithm);
+    }
+
+    public int[] getSizes() {
+        return sizes.clone();
+    }
+
+    public void setSizes(int... sizes) {
+        this.sizes = sizes.clone();
+    }
+
+    public InputDistribution[] getDistributions() {
+        return distributions.clone();
+    }
+
+    public void setDistributions(InputDistribution... distributions) {
+        this.distributions = distributions.clone();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @param seed the seed used to generate the inputs; every algorithm receives the same input for a given size and
+     *             distribution
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public double getTimeLimitSeconds() {
+        return timeLimitSeconds;
+    }
+
+    /**
+     * @param timeLimitSeconds the maximum time a single run may take before it is interrupted
+     */
+    public void setTimeLimitSeconds(double timeLimitSeconds) {
+        this.timeLimitSeconds = timeLimitSeconds;
+    }
+
+    public Path getTraceDirectory() {
+        return traceDirectory;
+    }
+
+    /**
+     * @param traceDirectory if not null, every run is recorded with a {@link TraceRecorder} into a file in this
+     *                       directory, named after the algorithm, size, and distribution
+     */
+    public void setTraceDirectory(Path traceDirectory) {
+        this.traceDirectory = traceDirectory;
+    }
+
+    public boolean isRaw() {
+        return raw;
+    }
+
+    /**
+     * @param raw if true, algorithms run without instrumentation, so that times are not inflated by counting. No
+     *            metrics are reported for raw runs, and they cannot be traced.
+     */
+    public void setRaw(boolean raw) {
+        this.raw = raw;
+    }
+
+    public InputCache getInputCache() {
+        return inputCache;
+    }
+
+    /**
+     * @param inputCache if not null, inputs are loaded from this cache instead of being generated on every run
+     */
+    public void setInputCache(InputCache inputCache) {
+        this.inputCache = inputCache;
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * @param offHeap if true, every run sorts a copy of the input in an {@link OffHeapArray}. Only algorithms that
+     *                extend {@link SortableArrayAlgorithm} can do this, so the others are skipped, and off-heap runs
+     *                cannot be traced.
+     */
+    public void setOffHeap(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    public List<CacheSimulator.Level> getCacheLevels() {
+        return cacheLevels;
+    }
+
+    /**
+     * @param cacheLevels if not null, every run simulates these cache levels with a {@link CacheSimulator}, and reports
+     *                    the hits and misses of each level. Raw runs are not simulated.
+     */
+    public void setCacheLevels(List<CacheSimulator.Level> cacheLevels) {
+        this.cacheLevels = cacheLevels == null ? null : List.copyOf(cacheLevels);
+    }
+
+    /**
+     * Run every algorithm on every combination of size and distribution. Runs happen one at a time, so that they do not
+     * compete with each other for CPU time.
+     * @param progress a stream to print each result to as soon as it is available, or null
+     * @return the results in the order they were run
+     * @throws IOException if a trace or the input cache could not be written
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    public List<Result> run(PrintStream progress) throws IOException, InterruptedException {
+        if(raw && traceDirectory != null)
+            throw new IllegalStateException("Raw runs cannot be traced");
+        if(offHeap && traceDirectory != null)
+            throw new IllegalStateException("Off-heap runs cannot be traced");
+
+        final List<Result> results = new ArrayList<>();
+        if(progress != null)
+            progress.println(Result.header());
+
+        for(int n : sizes) {
+            for(InputDistribution distribution : distributions) {
+                final int[] input = new int[n];
+                if(inputCache != null)
+                    inputCache.fill(distribution, input, seed);
+                else
+                    distribution.generate(input, seed);
+
+                for(Algorithm algorithm : algorithms) {
+                    if(offHeap && !(algorithm instanceof SortableArrayAlgorithm))
+                        continue;
+
+                    final Result result = runOnce(algorithm, input, distribution);
+                    results.add(result);
+                    if(progress != null)
+                        progress.println(result.toRow());
+                }
+            }
+        }
+        return results;
+    }
+
+    private Result runOnce(Algorithm algorithm, int[] input, InputDistribution distribution) throws IOException, InterruptedException {
+        final int[] heapArray = offHeap ? null : input.clone();
+        final SortableArray arr = offHeap ? OffHeapArray.copyOf(input) : SortableArray.of(heapArray);
+        final long[] elapsed = new long[1];
+        final Throwable[] failure = new Throwable[1];
+        algorithm.simulateCache(cacheLevels == null ? null : new CacheSimulator(cacheLevels));
+        algorithm.reset();
+        algorithm.setUnthrottled(true);
+        algorithm.setRaw(raw);
+        final TraceRecorder trace = traceDirectory == null ? null : TraceRecorder.create(
+                traceDirectory.resolve(traceFileName(algorithm, input.length, distribution)), algorithm.name, heapArray);
+        algorithm.recordTo(trace);
+
+        final Thread thread = new Thread(() -> {
+            final long start = System.nanoTime();
+            try {
+                algorithm.run(arr);
+            } catch(RuntimeException | Error e) {
+                failure[0] = e;
+            }
+            elapsed[0] = System.nanoTime() - start;
+        }, "algorithm");
+
+        try {
+            thread.start();
+            thread.join((long) (timeLimitSeconds * 1000));
+            final boolean finished = !thread.isAlive();
+            if(!finished) {
+                thread.interrupt();
+                thread.join();
+            }
+            // Raw runs only have the counts algorithms make directly, which would be misleading on their own
+            if(raw)
+                algorithm.metrics.clear();
+            return new Result(
+                    algorithm.name,
+                    input.length,
+                    distribution,
+                    finished,
+                    finished && failure[0] == null && isSorted(arr),
+                    failure[0] == null ? null : failure[0].toString(),
+                    finished ? elapsed[0] : 0,
+                    algorithm.metrics.record(),
+                    algorithm.metrics.stripeRecords()
+            );
+        } finally {
+            thread.interrupt();
+            thread.join();
+            algorithm.setUnthrottled(false);
+            algorithm.setRaw(false);
+            algorithm.simulateCache(null);
+            algorithm.recordTo(null);
+            if(trace != null)
+                trace.close();
+            // Free the copy now, or a sweep would hold every copy until the garbage collector runs
+            if(arr instanceof OffHeapArray offHeapArray && !thread.isAlive())
+                offHeapArray.close();
+        }
+    }
+
+    private static String traceFileName(Algorithm algorithm, int n, InputDistribution distribution) {
+        return algorithm.name.replaceAll("[^A-Za-z0-9.]+", "-") + "-" + n + "-" + distribution.label() + ".svtrace";
+    }
+
+    private static boolean isSorted(SortableArray arr) {
+        for(int i = 1; i < arr.length(); i++) {
+            if(arr.get(i - 1) > arr.get(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes results as comma-separated values, with a header row.
+     * @param results results of {@code run()}
+     * @param file the file to write to
+     * @throws IOException if the file could not be written
+     */
+    public static void writeCsv(List<Result> results, Path file) throws IOException {
+        try(PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println("algorithm,n,distribution,finished,sorted,wallNanos,elementsPerSecond,numComparisons,numSwaps,"
+                    + "numMainArrayReads,numMainArrayWrites,numAuxArrayReads,numAuxArrayWrites,numDiskReads,numDiskWrites,"
+                    + "numL1Hits,numL1Misses,numL2Hits,numL2Misses,numL3Hits,numL3Misses,workers,"
+                    + "workerComparisons,workerMainArrayWrites,error");
+            for(Result result : results) {
+                final Metrics.Record m = result.metrics;
+                out.println(String.join(",",
+                        '"' + result.algorithm.replace("\"", "\"\"") + '"',
+                        Integer.toString(result.n),
+                        result.distribution.label(),
+                        Boolean.toString(result.finished),
+                        Boolean.toString(result.sorted),
+                        Long.toString(result.wallNanos),
+                        String.format(Locale.ROOT, "%.1f", result.elementsPerSecond()),
+                        Long.toString(m.numComparisons()),
+                        Long.toString(m.numSwaps()),
+                        Long.toString(m.numMainArrayReads()),
+                        Long.toString(m.numMainArrayWrites()),
+                        Long.toString(m.numAuxArrayReads()),
+                        Long.toString(m.numAuxArrayWrites()),
+                        Long.toString(m.numDiskReads()),
+                        Long.toString(m.numDiskWrites()),
+                        Long.toString(m.numL1Hits()),
+                        Long.toString(m.numL1Misses()),
+                        Long.toString(m.numL2Hits()),
+                        Long.toString(m.numL2Misses()),
+                        Long.toString(m.numL3Hits()),
+                        Long.toString(m.numL3Misses()),
+                        Integer.toString(result.workerMetrics.size()),
+                        joinWorkerCounts(result.workerMetrics, Metrics.Record::numComparisons),
+                        joinWorkerCounts(result.workerMetrics, Metrics.Record::numMainArrayWrites),
+                        result.error == null ? "" : '"' + result.error.replace("\"", "\"\"") + '"'
+                ));
+            }
+        }
+    }
+
+    /**
+     * @return one count per worker, separated by semicolons so that they fit in a single CSV field
+     */
+    private static String joinWorkerCounts(List<Metrics.Record> workerMetrics, ToLongFunction<Metrics.Record> count) {
+        return workerMetrics.stream().map(m -> Long.toString(count.applyAsLong(m))).collect(Collectors.joining(";"));
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        final HeadlessRunner runner = new HeadlessRunner();
+        Path csv = null;
+        Path inputCacheDirectory = null;
+        long inputCacheMegabytes = 4096;
+
+        for(int a = 0; a < args.length; a++) {
+            final String option = args[a];
+            if(a + 1 >= args.length)
+                throw new IllegalArgumentException("Missing value for " + option);
+
+            final String value = args[++a];
+            switch(option) {
+                case "--sizes" -> runner.setSizes(Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray());
+                case "--distributions" -> runner.setDistributions(Arrays.stream(value.split(","))
+                        .map(InputDistributions::fromLabel).toArray(InputDistribution[]::new));
+                case "--seed" -> runner.setSeed(Long.parseLong(value));
+                case "--time-limit" -> runner.setTimeLimitSeconds(Double.parseDouble(value));
+                case "--csv" -> csv = Path.of(value);
+                case "--trace" -> runner.setTraceDirectory(Files.createDirectories(Path.of(value)));
+                case "--raw" -> runner.setRaw(Boolean.parseBoolean(value));
+                case "--input-cache" -> inputCacheDirectory = Path.of(value);
+                case "--input-cache-mb" -> inputCacheMegabytes = Long.parseLong(value);
+                case "--off-heap" -> runner.setOffHeap(Boolean.parseBoolean(value));
+                case "--cache" -> runner.setCacheLevels(CacheSimulator.parseLevels(value));
+                default -> throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+
+        if(inputCacheDirectory != null)
+            runner.setInputCache(new InputCache(inputCacheDirectory, inputCacheMegabytes << 20));
+
+        final List<Result> results = runner.run(System.out);
+        if(csv != null)
+            writeCsv(results, csv);
+    }
+
+    /**
+     * The outcome of running one algorithm on one input.
+     * @param algorithm the name of the algorithm
+     * @param n the array size
+     * @param distribution the input distribution
+     * @param finished false if the run was interrupted for exceeding the time limit
+     * @param sorted true if the run finished and the array was left in ascending order
+     * @param error the exception the algorithm threw, or null if it returned normally
+     * @param wallNanos the time taken by {@code execute()}, or 0 if the run did not finish
+     * @param metrics the metrics of the algorithm at the end of the run, including all workers
+     * @param workerMetrics the metrics of each worker of a {@link ParallelAlgorithm}, or an empty list
+     */
+    public record Result(
+            String algorithm,
+            int n,
+            InputDistribution distribution,
+            boolean finished,
+            boolean sorted,
+            String error,
+            long wallNanos,
+            Metrics.Record metrics,
+            List<Metrics.Record> workerMetrics) {
+        /**
+         * @return the number of elements sorted per second, or 0 if the run did not finish
+         */
+        public double elementsPerSecond() {
+            return finished && wallNanos > 0 ? n * 1_000_000_000.0 / wallNanos : 0;
+        }
+
+        static String header() {
+            return String.format(Locale.ROOT, "%-40s %10s %-14s %12s %14s %14s %14s %14s",
+                    "Algorithm", "n", "Distribution", "Time (ms)", "Elements/s", "Comparisons", "Swaps", "Main reads");
+        }
+
+        String toRow() {
+            final String time = finished ? String.format(Locale.ROOT, "%.3f", wallNanos / 1_000_000.0) : "timed out";
+            final String status = error != null ? " (FAILED: " + error + ")"
+                    : finished && !sorted ? " (NOT SORTED)" : "";
+            final StringBuilder row = new StringBuilder(String.format(Locale.ROOT,
+                    "%-40s %10d %-14s %12s %14.0f %14d %14d %14d%s",
+                    algorithm, n, distribution.label(), time, elementsPerSecond(), metrics.numComparisons(), metrics.numSwaps(),
+                    metrics.numMainArrayReads(), status));
+            for(int w = 0; w < workerMetrics.size(); w++) {
+                final Metrics.Record worker = workerMetrics.get(w);
+                row.append(String.format(Locale.ROOT, "%n  %-38s %10s %-14s %12s %14s %14d %14d %14d",
+                        "worker #" + w, "", "", "", "", worker.numComparisons(), worker.numSwaps(),
+                        worker.numMainArrayReads()));
+            }
+            return row.toString();
+        }
+    }
+}
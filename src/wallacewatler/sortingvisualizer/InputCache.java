@@ -0,0 +1,193 @@
+package wallacewatler.sortingvisualizer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A directory of generated inputs, so that large inputs are generated once and then loaded by every later run. Inputs
+ * are keyed by the label and parameters of their distribution, their length, and their seed, and each is stored in a
+ * file of its own as raw {@code int}s in the native byte order. Inputs are loaded by memory-mapping their file and
+ * copying it into the array in bulk, which costs about as much as copying the array.
+ * <p>
+ * The total size of the files is bounded. When an input is added, the least recently used inputs are deleted until the
+ * cache fits again. Use is tracked by the modification time of the files, so it carries over between runs, and several
+ * processes can share a directory. New files are written under a temporary name and then moved into place, so an input
+ * is never loaded half-written.
+ */
+public final class InputCache {
+    private static final String SUFFIX = ".ints";
+    /** The most bytes mapped or written at once. */
+    private static final int CHUNK_SIZE = 1 << 26;
+
+    private final Path directory;
+    private final long maxBytes;
+
+    /**
+     * @param directory the directory to keep inputs in, which is created if it does not exist
+     * @param maxBytes the most bytes the inputs in the directory may take together
+     * @throws IOException if the directory could not be created
+     */
+    public InputCache(Path directory, long maxBytes) throws IOException {
+        if(maxBytes < 0)
+            throw new IllegalArgumentException("maxBytes must not be negative");
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Fill an array with an input, loading it from the cache if it is there, and otherwise generating it and adding
+     * it to the cache. The array ends up the same either way.
+     * @param distribution the distribution of the input
+     * @param arr the array to fill
+     * @param seed the seed of the input
+     * @throws IOException if the cache could not be read or written
+     */
+    public synchronized void fill(InputDistribution distribution, int[] arr, long seed) throws IOException {
+        final Path file = file(distribution, arr.length, seed);
+        if(load(file, arr))
+            return;
+
+        distribution.generate(arr, seed);
+        store(file, arr);
+        evict(file);
+    }
+
+    /**
+     * @param distribution the distribution of an input
+     * @param n the length of the input
+     * @param seed the seed of the input
+     * @return the file that holds the input, which may not exist
+     */
+    public Path file(InputDistribution distribution, int n, long seed) {
+        final String parameters = distribution.parameters().isEmpty() ? "" : "-" + distribution.parameters();
+        final String name = distribution.label() + parameters + "-" + n + "-" + seed;
+        return directory.resolve(name.replaceAll("[^A-Za-z0-9.=+-]", "_") + SUFFIX);
+    }
+
+    /**
+     * @return the total size of the inputs in the cache
+     * @throws IOException if the directory could not be listed
+     */
+    public synchronized long sizeBytes() throws IOException {
+        long total = 0;
+        for(Entry entry : entries())
+            total += entry.size;
+        return total;
+    }
+
+    /**
+     * Delete every input in the cache.
+     * @throws IOException if the directory could not be listed, or a file could not be deleted
+     */
+    public synchronized void clear() throws IOException {
+        for(Entry entry : entries())
+            Files.deleteIfExists(entry.file);
+    }
+
+    /**
+     * @return true if the input was in the cache and was loaded into {@code arr}
+     */
+    private static boolean load(Path file, int[] arr) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if(channel.size() != (long) arr.length * Integer.BYTES)
+                return false;
+
+            for(int from = 0; from < arr.length; ) {
+                final int length = Math.min(arr.length - from, CHUNK_SIZE / Integer.BYTES);
+                final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, (long) from * Integer.BYTES,
+                        (long) length * Integer.BYTES);
+                mapped.order(ByteOrder.nativeOrder()).asIntBuffer().get(arr, from, length);
+                from += length;
+            }
+        } catch(NoSuchFileException e) {
+            return false;
+        }
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        return true;
+    }
+
+    private static void store(Path file, int[] arr) throws IOException {
+        final Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                final ByteBuffer buffer = ByteBuffer.allocateDirect((int) Math.min(CHUNK_SIZE,
+                        Math.max(Integer.BYTES, (long) arr.length * Integer.BYTES))).order(ByteOrder.nativeOrder());
+                for(int from = 0; from < arr.length; ) {
+                    final int length = Math.min(arr.length - from, buffer.capacity() / Integer.BYTES);
+                    buffer.clear();
+                    buffer.asIntBuffer().put(arr, from, length);
+                    buffer.limit(length * Integer.BYTES);
+                    while(buffer.hasRemaining())
+                        channel.write(buffer);
+                    from += length;
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Delete the least recently used inputs until the cache fits in its size. The input that was just added is kept,
+     * even if it does not fit on its own.
+     */
+    private void evict(Path keep) throws IOException {
+        final List<Entry> entries = entries();
+        long total = 0;
+        for(Entry entry : entries)
+            total += entry.size;
+
+        entries.sort(Comparator.comparing(entry -> entry.lastUsed));
+        for(Entry entry : entries) {
+            if(total <= maxBytes)
+                break;
+            if(entry.file.equals(keep))
+                continue;
+            Files.deleteIfExists(entry.file);
+            total -= entry.size;
+        }
+    }
+
+    private List<Entry> entries() throws IOException {
+        final List<Entry> entries = new ArrayList<>();
+        try(Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).forEach(file -> {
+                try {
+                    entries.add(new Entry(file, Files.size(file), Files.getLastModifiedTime(file)));
+                } catch(NoSuchFileException e) {
+                    // Evicted by another process while listing
+                } catch(IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch(UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return entries;
+    }
+
+    private record Entry(Path file, long size, FileTime lastUsed) {}
+}
@@ -0,0 +1,31 @@
+package wallacewatler.sortingvisualizer;
+
+/**
+ * A way of generating input arrays for algorithms. Built-in distributions are created by {@link InputDistributions};
+ * custom ones can be given to {@link HeadlessRunner#setDistributions(InputDistribution...)}.
+ */
+public interface InputDistribution {
+    /**
+     * @return a short name for this distribution, used in results and on the command line
+     */
+    String label();
+
+    /**
+     * Distinguishes distributions that share a label but generate different inputs, such as the same distribution
+     * with different parameters. Inputs are cached by label, parameters, length and seed, so a distribution must not
+     * change what it generates without changing one of them.
+     * @return the parameters of this distribution, or an empty string if it has none
+     * @see InputCache
+     */
+    default String parameters() {
+        return "";
+    }
+
+    /**
+     * Fill an array with an input of its length. The contents must depend only on the length of the array and the
+     * seed, so that every algorithm can be given the same input, and a run can be reproduced later.
+     * @param arr the array to fill
+     * @param seed the seed of the input
+     */
+    void generate(int[] arr, long seed);
+}
@@ -0,0 +1,356 @@
+package wallacewatler.sortingvisualizer;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * The built-in input distributions. Every generator takes linear time. Arrays are generated in fixed-size blocks, each
+ * with its own random stream derived from the seed, and the blocks of large arrays are generated in parallel. Since the
+ * blocks do not depend on the number of threads, the same length and seed always give the same array.
+ * <p>
+ * Unless noted otherwise, inputs are permutations of {@code 0} to {@code n - 1}.
+ */
+public final class InputDistributions {
+    /** The number of elements generated from one random stream. */
+    private static final int BLOCK_SIZE = 1 << 16;
+    /** Arrays at least this long are generated in parallel. */
+    private static final int PARALLEL_THRESHOLD = 1 << 20;
+    /** The most buckets a shuffle scatters into. */
+    private static final int MAX_BUCKETS = 1 << 10;
+
+    private InputDistributions() {}
+
+    /**
+     * @return the distributions offered by default, with default parameters
+     */
+    public static List<InputDistribution> standard() {
+        return List.of(uniform(), nearlySorted(1 / 300.0), fewMisplaced(0.01), sorted(), reversed(), fewUnique(8),
+                zipf(1), sawtooth(8), organPipe());
+    }
+
+    /**
+     * @param label the label of a distribution in {@code standard()}
+     * @return that distribution
+     */
+    public static InputDistribution fromLabel(String label) {
+        for(InputDistribution distribution : standard()) {
+            if(distribution.label().equals(label))
+                return distribution;
+        }
+        throw new IllegalArgumentException("Unknown distribution " + label);
+    }
+
+    /**
+     * @return uniformly shuffled inputs
+     */
+    public static InputDistribution uniform() {
+        return new Distribution("random", "", InputDistributions::shuffle);
+    }
+
+    /**
+     * Sorted inputs in which every element was moved a short, random distance.
+     * @param maxDisplacement the furthest an element may be from its sorted position, as a fraction of the length
+     */
+    public static InputDistribution nearlySorted(double maxDisplacement) {
+        return new Distribution("nearly-sorted", "maxDisplacement=" + maxDisplacement, (arr, seed) -> {
+            fillBlocks(arr, seed, (a, from, to, rand) -> {
+                for(int i = from; i < to; i++)
+                    a[i] = i;
+            });
+            // Shuffling windows of half the displacement, then the same windows offset by a quarter, keeps every
+            // element within the displacement while letting elements cross the boundaries of the first windows
+            final int window = (int) Math.max(2, Math.min(arr.length, maxDisplacement * arr.length / 2));
+            shuffleWindows(arr, seed, 0, window);
+            shuffleWindows(arr, ~seed, window / 2, window);
+        });
+    }
+
+    /**
+     * Sorted inputs in which a few elements were moved to arbitrary positions.
+     * @param fraction the fraction of elements to move
+     */
+    public static InputDistribution fewMisplaced(double fraction) {
+        return new Distribution("misplaced", "fraction=" + fraction, (arr, seed) -> {
+            fillBlocks(arr, seed, (a, from, to, rand) -> {
+                for(int i = from; i < to; i++)
+                    a[i] = i;
+            });
+            final int n = arr.length;
+            final int count = (int) Math.min(n, Math.round(fraction * n));
+            if(count < 2)
+                return;
+
+            // Pick distinct positions, then shuffle the elements at them among themselves
+            final SplittableRandom rand = random(seed, -1);
+            final BitSet picked = new BitSet(n);
+            for(int found = 0; found < count; ) {
+                final int p = rand.nextInt(n);
+                if(!picked.get(p)) {
+                    picked.set(p);
+                    found++;
+                }
+            }
+            final int[] positions = picked.stream().toArray();
+            final int[] values = new int[count];
+            for(int k = 0; k < count; k++)
+                values[k] = arr[positions[k]];
+            shuffle(values, 0, count, rand);
+            for(int k = 0; k < count; k++)
+                arr[positions[k]] = values[k];
+        });
+    }
+
+    /**
+     * @return inputs in ascending order
+     */
+    public static InputDistribution sorted() {
+        return new Distribution("sorted", "", (arr, seed) -> fillBlocks(arr, seed, (a, from, to, rand) -> {
+            for(int i = from; i < to; i++)
+                a[i] = i;
+        }));
+    }
+
+    /**
+     * @return inputs in descending order
+     */
+    public static InputDistribution reversed() {
+        return new Distribution("reversed", "", (arr, seed) -> fillBlocks(arr, seed, (a, from, to, rand) -> {
+            for(int i = from; i < to; i++)
+                a[i] = a.length - 1 - i;
+        }));
+    }
+
+    /**
+     * Inputs of only a few distinct values, spread evenly from {@code 0} to {@code n}, in random order.
+     * @param distinct the number of distinct values
+     */
+    public static InputDistribution fewUnique(int distinct) {
+        if(distinct < 1)
+            throw new IllegalArgumentException("distinct must be at least 1");
+        return new Distribution("few-unique", "distinct=" + distinct, (arr, seed) -> fillBlocks(arr, seed, (a, from, to, rand) -> {
+            final int levels = Math.min(distinct, a.length);
+            for(int i = from; i < to; i++)
+                a[i] = (int) ((long) rand.nextInt(levels) * a.length / levels);
+        }));
+    }
+
+    /**
+     * Inputs with many duplicates, where value {@code k - 1} occurs with a frequency proportional to
+     * {@code 1 / k^exponent}, in random order. Small values are the most frequent.
+     * @param exponent the skew of the distribution, greater than 0
+     */
+    public static InputDistribution zipf(double exponent) {
+        if(!(exponent > 0))
+            throw new IllegalArgumentException("exponent must be greater than 0");
+        return new Distribution("zipf", "exponent=" + exponent, (arr, seed) -> {
+            final ZipfSampler sampler = new ZipfSampler(Math.max(1, arr.length), exponent);
+            fillBlocks(arr, seed, (a, from, to, rand) -> {
+                for(int i = from; i < to; i++)
+                    a[i] = sampler.sample(rand) - 1;
+            });
+        });
+    }
+
+    /**
+     * Inputs made of several ascending runs, each rising from {@code 0} to nearly {@code n}.
+     * @param teeth the number of runs
+     */
+    public static InputDistribution sawtooth(int teeth) {
+        if(teeth < 1)
+            throw new IllegalArgumentException("teeth must be at least 1");
+        return new Distribution("sawtooth", "teeth=" + teeth, (arr, seed) -> {
+            final int toothLength = Math.max(1, (arr.length + teeth - 1) / teeth);
+            fillBlocks(arr, seed, (a, from, to, rand) -> {
+                for(int i = from; i < to; i++)
+                    a[i] = (int) ((long) (i % toothLength) * a.length / toothLength);
+            });
+        });
+    }
+
+    /**
+     * @return inputs that ascend through the even values, then descend through the odd values
+     */
+    public static InputDistribution organPipe() {
+        return new Distribution("organ-pipe", "", (arr, seed) -> fillBlocks(arr, seed, (a, from, to, rand) -> {
+            final int half = (a.length + 1) / 2;
+            for(int i = from; i < to; i++)
+                a[i] = i < half ? 2 * i : 2 * (a.length - 1 - i) + 1;
+        }));
+    }
+
+    /**
+     * Fill an array with a uniformly random permutation of {@code 0} to {@code n - 1}. Every element is sent to a
+     * random bucket, and then every bucket is shuffled, which is uniform because the buckets are chosen independently.
+     * Both phases work on separate blocks and buckets, so they run in parallel without changing the result.
+     */
+    private static void shuffle(int[] arr, long seed) {
+        final int n = arr.length;
+        final int numBlocks = Math.max(1, (n + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        final int numBuckets = Math.min(numBlocks, MAX_BUCKETS);
+        if(numBuckets == 1) {
+            for(int i = 0; i < n; i++)
+                arr[i] = i;
+            shuffle(arr, 0, n, random(seed, 0));
+            return;
+        }
+
+        // Count how many elements of each block go to each bucket, then replay the same random choices to scatter them
+        final int[][] positions = new int[numBlocks][numBuckets];
+        blocks(numBlocks, n).forEach(b -> {
+            final SplittableRandom rand = random(seed, b);
+            final int to = Math.min(n, (b + 1) * BLOCK_SIZE);
+            for(int i = b * BLOCK_SIZE; i < to; i++)
+                positions[b][rand.nextInt(numBuckets)]++;
+        });
+        final int[] bucketStarts = new int[numBuckets + 1];
+        for(int k = 0; k < numBuckets; k++) {
+            int position = bucketStarts[k];
+            for(int b = 0; b < numBlocks; b++) {
+                final int count = positions[b][k];
+                positions[b][k] = position;
+                position += count;
+            }
+            bucketStarts[k + 1] = position;
+        }
+        blocks(numBlocks, n).forEach(b -> {
+            final SplittableRandom rand = random(seed, b);
+            final int[] next = positions[b];
+            final int to = Math.min(n, (b + 1) * BLOCK_SIZE);
+            for(int i = b * BLOCK_SIZE; i < to; i++)
+                arr[next[rand.nextInt(numBuckets)]++] = i;
+        });
+        blocks(numBuckets, n).forEach(k -> shuffle(arr, bucketStarts[k], bucketStarts[k + 1], random(~seed, k)));
+    }
+
+    /**
+     * Shuffle consecutive windows of an array, each independently.
+     * @param offset the start of the first whole window; the elements before it form a window of their own
+     */
+    private static void shuffleWindows(int[] arr, long seed, int offset, int window) {
+        final int n = arr.length;
+        final int numWindows = (n - offset + window - 1) / window + 1;
+        blocks(numWindows, n).forEach(w -> {
+            final int from = w == 0 ? 0 : Math.min(n, offset + (w - 1) * window);
+            final int to = Math.min(n, offset + w * window);
+            shuffle(arr, from, to, random(seed, w));
+        });
+    }
+
+    /** Fisher-Yates shuffle of the range {@code [from, to)}. */
+    private static void shuffle(int[] arr, int from, int to, SplittableRandom rand) {
+        for(int i = to - 1; i > from; i--) {
+            final int j = from + rand.nextInt(i - from + 1);
+            final int temp = arr[i];
+            arr[i] = arr[j];
+            arr[j] = temp;
+        }
+    }
+
+    private static void fillBlocks(int[] arr, long seed, BlockFiller filler) {
+        final int n = arr.length;
+        final int numBlocks = (n + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        blocks(numBlocks, n).forEach(b -> filler.fill(arr, b * BLOCK_SIZE, Math.min(n, (b + 1) * BLOCK_SIZE),
+                random(seed, b)));
+    }
+
+    /**
+     * @param count the number of independent pieces of work
+     * @param n the length of the array being generated, which decides whether to work in parallel
+     */
+    private static IntStream blocks(int count, int n) {
+        final IntStream blocks = IntStream.range(0, count);
+        return n >= PARALLEL_THRESHOLD ? blocks.parallel() : blocks;
+    }
+
+    /**
+     * @return the random stream of one block, well separated from the streams of nearby seeds and blocks
+     */
+    private static SplittableRandom random(long seed, int block) {
+        long z = seed + 0x9E3779B97F4A7C15L * (block + 1L);
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return new SplittableRandom(z ^ (z >>> 33));
+    }
+
+    @FunctionalInterface
+    private interface BlockFiller {
+        /**
+         * Fill the range {@code [from, to)} of an array.
+         */
+        void fill(int[] arr, int from, int to, SplittableRandom rand);
+    }
+
+    @FunctionalInterface
+    private interface Generator {
+        void generate(int[] arr, long seed);
+    }
+
+    private record Distribution(String label, String parameters, Generator generator) implements InputDistribution {
+        @Override
+        public void generate(int[] arr, long seed) {
+            generator.generate(arr, seed);
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /**
+     * Samples ranks from 1 to {@code n} with probabilities proportional to {@code 1 / k^exponent} in constant
+     * expected time, by rejection-inversion (Hormann and Derflinger, 1996).
+     */
+    private static final class ZipfSampler {
+        private final int n;
+        private final double exponent;
+        private final double hIntegralX1;
+        private final double hIntegralN;
+        private final double s;
+
+        private ZipfSampler(int n, double exponent) {
+            this.n = n;
+            this.exponent = exponent;
+            hIntegralX1 = hIntegral(1.5) - 1;
+            hIntegralN = hIntegral(n + 0.5);
+            s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+        }
+
+        private int sample(SplittableRandom rand) {
+            while(true) {
+                final double u = hIntegralN + rand.nextDouble() * (hIntegralX1 - hIntegralN);
+                final double x = hIntegralInverse(u);
+                final int k = (int) Math.max(1, Math.min(n, (long) (x + 0.5)));
+                if(k - x <= s || u >= hIntegral(k + 0.5) - h(k))
+                    return k;
+            }
+        }
+
+        private double h(double x) {
+            return Math.exp(-exponent * Math.log(x));
+        }
+
+        private double hIntegral(double x) {
+            final double logX = Math.log(x);
+            return helper2((1 - exponent) * logX) * logX;
+        }
+
+        private double hIntegralInverse(double x) {
+            final double t = Math.max(-1, x * (1 - exponent));
+            return Math.exp(helper1(t) * x);
+        }
+
+        /** {@code log(1 + x) / x}, accurate near 0. */
+        private static double helper1(double x) {
+            return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1 / 3.0 - 0.25 * x));
+        }
+
+        /** {@code (exp(x) - 1) / x}, accurate near 0. */
+        private static double helper2(double x) {
+            return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+        }
+    }
+}
@@ -3,7 +3,7 @@ package wallacewatler.sortingvisualizer;
 /**
  * Sorts an array by repeatedly inserting elements into their correct position.
  */
-public class InsertionSort extends Algorithm {
+public class InsertionSort extends SortableArrayAlgorithm {
     private int i;
     private int j;
 
@@ -12,8 +12,8 @@ public class InsertionSort extends Algorithm {
     }
 
     @Override
-    protected void execute(int[] arr) {
-        for(i = 1; i < arr.length; i++) {
+    protected void execute(SortableArray arr) {
+        for(i = 1; i < arr.length(); i++) {
             try { awaitStep(); } catch(InterruptedException e) { return; }
             for(j = i; j > 0 && compare(arr, j, j - 1) < 0; j--) {
                 try { awaitStep(); } catch(InterruptedException e) { return; }
@@ -23,7 +23,7 @@ public class InsertionSort extends Algorithm {
     }
 
     @Override
-    public boolean isPointOfInterest(int index) {
-        return index == i || index == j;
+    public int[] pointsOfInterest() {
+        return new int[] {i, j};
     }
 }
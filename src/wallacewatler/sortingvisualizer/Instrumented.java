@@ -0,0 +1,830 @@
+package wallacewatler.sortingvisualizer;
+
+/**
+ * The convenience methods through which an algorithm accesses arrays and takes steps, together with the state that
+ * counts, draws, traces and paces those accesses. {@link Algorithm} builds on this, as does each
+ * {@link ParallelAlgorithm.Worker}, which accesses the arrays of its parallel algorithm on one pool thread with its own
+ * metrics stripe and step budget, but is not an algorithm itself.
+ */
+abstract class Instrumented {
+    /** The metrics the convenience methods count into. */
+    public final Metrics metrics;
+    private final StepGate stepGate;
+    /** If true, the convenience methods only access the arrays, without counting, tracking, or tracing. */
+    private boolean raw;
+    /** Step permits claimed from the gate but not yet consumed. Only the thread executing the algorithm uses this. */
+    private int stepBudget;
+    /** The array given to {@code execute()}. Accesses to any other array are counted as auxiliary array accesses. */
+    private int[] mainArray;
+    /** The key column of a {@link KeyedAlgorithm}, whose accesses are also counted as main array accesses. */
+    private long[] mainKeys;
+    /** The off-heap array given to a {@link SortableArrayAlgorithm}, whose accesses count as main array accesses. */
+    private SortableArray mainSortable;
+    /** Writes to this array are reported to {@code columns}. */
+    private int[] trackedArray;
+    /** Writes to this off-heap array are reported to {@code columns}. Only one tracked array is set at a time. */
+    private SortableArray trackedSortable;
+    private ColumnModel columns;
+    /** Held while updating {@code columns}, if several threads may write the tracked array at once. */
+    private Object columnLock;
+    /** Every array operation is recorded here, if not null. */
+    private TraceRecorder trace;
+    /** Held while recording, if several threads may record at once. */
+    private Object traceLock;
+    /** The number of comparisons in the metrics that have been recorded. */
+    private long tracedComparisons;
+    /** The number of disk reads in the metrics that have been recorded. */
+    private long tracedDiskReads;
+    /** The number of disk writes in the metrics that have been recorded. */
+    private long tracedDiskWrites;
+    /** Every array access is simulated here, if not null and the run is not raw. */
+    private CacheSimulator cache;
+    /**
+     * Publishes a frame before the executing thread blocks for permits, so the visualizer shows where it stopped,
+     * unless replaced by {@code onStepsExhausted()}.
+     */
+    private Runnable beforeWait;
+
+    /**
+     * Count into the given metrics and take steps from the given gate.
+     */
+    Instrumented(Metrics metrics, StepGate stepGate) {
+        this.metrics = metrics;
+        this.stepGate = stepGate;
+    }
+
+    /** Must not be called while the algorithm is executing. */
+    final void reset() {
+        metrics.clear();
+        stepGate.drain();
+        stepGate.reopen();
+        stepBudget = 0;
+        if(cache != null)
+            cache.clear();
+    }
+
+    /**
+     * Report writes to {@code arr} to {@code columns}, so that the visualizer only needs to redraw what changed. Must
+     * not be called while the algorithm is executing.
+     * @param arr the array the algorithm will execute on, or null to stop tracking
+     * @param columns the column model of {@code arr}
+     */
+    final void trackWrites(int[] arr, ColumnModel columns) {
+        trackedArray = arr;
+        trackedSortable = null;
+        this.columns = columns;
+        columnLock = columns != null && concurrentWriters() ? columns : null;
+        beforeWait = columns == null ? null : this::publish;
+    }
+
+    /**
+     * Report writes to an array that may be off the heap to {@code columns}. Must not be called while the algorithm is
+     * executing.
+     * @param arr the array the algorithm will execute on
+     * @param columns the column model of {@code arr}
+     * @see #trackWrites(int[], ColumnModel)
+     */
+    final void trackOffHeapWrites(SortableArray arr, ColumnModel columns) {
+        if(arr instanceof SortableArray.HeapArray heap) {
+            trackWrites(heap.array(), columns);
+        } else {
+            trackWrites(null, columns);
+            trackedSortable = arr;
+        }
+    }
+
+    /**
+     * Simulate the caches for every array access made through the convenience methods, counting the hits and misses of
+     * each level into the metrics. The caches are emptied on every {@code reset()}. Must not be called while the
+     * algorithm is executing.
+     * @param cache the simulator to use, or null to stop simulating
+     */
+    final void simulateCache(CacheSimulator cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * @return the cache simulator of this algorithm, or null
+     */
+    final CacheSimulator cacheSimulator() {
+        return cache;
+    }
+
+    /**
+     * Record every array operation of the algorithm. Must not be called while the algorithm is executing.
+     * @param trace the recorder to record to, or null to stop recording
+     */
+    final void recordTo(TraceRecorder trace) {
+        flushTrace();
+        this.trace = trace;
+        traceLock = trace != null && concurrentWriters() ? trace : null;
+        tracedComparisons = metrics.numComparisons;
+        tracedDiskReads = metrics.numDiskReads;
+        tracedDiskWrites = metrics.numDiskWrites;
+    }
+
+    /**
+     * Record the comparisons counted since the last recorded operation. Call this from the executing thread, or after
+     * it finished, once no more operations will be recorded.
+     */
+    final void flushTrace() {
+        if(trace == null)
+            return;
+        if(traceLock == null) {
+            traceCountedComparisons();
+        } else {
+            synchronized(traceLock) {
+                traceCountedComparisons();
+            }
+        }
+    }
+
+    /**
+     * Comparisons and disk transfers counted directly into the metrics do not go through any convenience method, so
+     * they are recorded ahead of the next operation.
+     */
+    private void traceCountedComparisons() {
+        if(metrics.numComparisons != tracedComparisons) {
+            trace.comparisons(metrics.numComparisons - tracedComparisons);
+            tracedComparisons = metrics.numComparisons;
+        }
+        if(metrics.numDiskReads != tracedDiskReads || metrics.numDiskWrites != tracedDiskWrites) {
+            trace.diskTransfers(metrics.numDiskReads - tracedDiskReads, metrics.numDiskWrites - tracedDiskWrites);
+            tracedDiskReads = metrics.numDiskReads;
+            tracedDiskWrites = metrics.numDiskWrites;
+        }
+    }
+
+    /**
+     * Track writes to the same array and column model, record to the same trace, and count accesses to the same main
+     * array, as another algorithm.
+     * @param other an algorithm that {@code trackWrites()} or {@code recordTo()} was called on, or that is executing
+     */
+    final void trackWritesLike(Instrumented other) {
+        trackWrites(other.trackedArray, other.columns);
+        trackedSortable = other.trackedSortable;
+        mainArray = other.mainArray;
+        mainKeys = other.mainKeys;
+        mainSortable = other.mainSortable;
+        raw = other.raw;
+        beforeWait = other.beforeWait;
+        recordTo(other.trace);
+    }
+
+    /**
+     * Run something on the executing thread whenever it runs out of step permits, in place of publishing a frame.
+     * Permits it releases are claimed right away. Must not be called while the algorithm is executing, and is undone by
+     * {@code trackWrites()}.
+     * @param hook called before the executing thread blocks for permits
+     */
+    final void onStepsExhausted(Runnable hook) {
+        beforeWait = hook;
+    }
+
+    /**
+     * @return true if the tracked array may be written by several threads at once
+     */
+    boolean concurrentWriters() {
+        return false;
+    }
+
+    /**
+     * @return the algorithm whose points of interest are published along with the writes made through these methods
+     */
+    abstract Algorithm highlightSource();
+
+    /**
+     * @return the array given to {@code trackWrites()}, or null
+     */
+    final int[] trackedArray() {
+        return trackedArray;
+    }
+
+    /**
+     * @return the off-heap array given to {@code trackOffHeapWrites()}, or null
+     */
+    final SortableArray trackedSortable() {
+        return trackedSortable;
+    }
+
+    /**
+     * Count accesses to an array as main array accesses for the rest of the execution, and accesses to any other array
+     * as auxiliary array accesses.
+     * @param arr the main array
+     */
+    final void useMainArray(int[] arr) {
+        mainArray = arr;
+        mainKeys = null;
+        mainSortable = null;
+    }
+
+    /**
+     * Count accesses to an array that may be off the heap as main array accesses for the rest of the execution.
+     * @param arr the main array
+     */
+    final void useMainSortable(SortableArray arr) {
+        mainArray = null;
+        mainKeys = null;
+        mainSortable = arr;
+    }
+
+    /**
+     * Count accesses to a key column as main array accesses for the rest of the execution.
+     * @param keys the key column
+     */
+    final void useMainKeys(long[] keys) {
+        mainKeys = keys;
+    }
+
+    /**
+     * Tell the visualizer that the executing thread changed the tracked array without going through the convenience
+     * methods, so that every column is recomputed.
+     */
+    final void arrayReplaced() {
+        if(columns == null)
+            return;
+        if(columnLock == null) {
+            columns.rebuild();
+        } else {
+            synchronized(columnLock) {
+                columns.rebuild();
+            }
+        }
+    }
+
+    final void publish() {
+        if(columnLock == null) {
+            columns.publish(highlightSource());
+        } else {
+            synchronized(columnLock) {
+                columns.publish(highlightSource());
+            }
+        }
+    }
+
+    final StepGate stepGate() {
+        return stepGate;
+    }
+
+    /**
+     * Select whether runs are instrumented. In a raw run, the convenience methods only access the arrays: nothing is
+     * counted into the metrics, written arrays are not tracked, and operations are not traced, so that timing measures
+     * the algorithm rather than the instrumentation. Counts an algorithm makes into its metrics directly are still
+     * made. {@code awaitStep()} still claims permits, so a raw run should also be unthrottled, and can be interrupted
+     * as usual. Must not be called while the algorithm is executing.
+     * @param raw true to run without instrumentation
+     */
+    final void setRaw(boolean raw) {
+        this.raw = raw;
+    }
+
+    /**
+     * Wait for a step permit. If step permits are available, this will immediately return and consume one step permit.
+     * If no step permits are available, this will block the current thread until either a step permit becomes available
+     * or the thread is interrupted.
+     * <p>
+     * Permits are claimed from the visualizer in small batches, so most calls return without any synchronization.
+     * Interruption is detected whenever a new batch is claimed. The visualizer only reads the array when a batch is
+     * claimed, so it never sees a step half done.
+     * <p>
+     * This is used to break up the algorithm execution in order to animate it. This should be called from within
+     * {@code execute()}, typically right before a "step" of the algorithm (the exact meaning of a step is up to the
+     * implementer).
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    protected final void awaitStep() throws InterruptedException {
+        if(stepBudget > 0) {
+            stepBudget--;
+            return;
+        }
+        if(columns != null && columns.isPublishRequested())
+            publish();
+        stepBudget = stepGate.claim(beforeWait) - 1;
+    }
+
+    /**
+     * Convenience method to swap two elements of an array. This will increase the number of swaps, array reads, and
+     * array writes. Here and in the other convenience methods, accesses to the array given to {@code execute()} are
+     * counted as main array accesses, and accesses to any other array as auxiliary array accesses.
+     * @param arr an array
+     * @param i index of the first element
+     * @param j index of the second element
+     */
+    protected final void swap(int[] arr, int i, int j) {
+        if(raw) {
+            final int temp = arr[i];
+            arr[i] = arr[j];
+            arr[j] = temp;
+            return;
+        }
+        if(trace != null) {
+            if(traceLock == null) {
+                traceCountedComparisons();
+                trace.swap(arr, i, j);
+            } else {
+                synchronized(traceLock) {
+                    traceCountedComparisons();
+                    trace.swap(arr, i, j);
+                }
+            }
+        }
+        final int temp = read(arr, i);
+        write(arr, i, read(arr, j));
+        write(arr, j, temp);
+        metrics.numSwaps++;
+    }
+
+    /**
+     * Convenience method to get an element of an array. This will increment the number of array reads.
+     * @param arr an array
+     * @param i index of the element to get
+     * @return the element at index {@code i}
+     */
+    protected final int get(int[] arr, int i) {
+        if(raw)
+            return arr[i];
+        if(trace != null) {
+            if(traceLock == null) {
+                traceCountedComparisons();
+                trace.get(arr, i);
+            } else {
+                synchronized(traceLock) {
+                    traceCountedComparisons();
+                    trace.get(arr, i);
+                }
+            }
+        }
+        return read(arr, i);
+    }
+
+    private int read(int[] arr, int i) {
+        if(arr == mainArray)
+            metrics.numMainArrayReads++;
+        else
+            metrics.numAuxArrayReads++;
+        touch(arr, i);
+        return arr[i];
+    }
+
+    /**
+     * Convenience method to set an element of an array. This will increment the number of array writes.
+     * @param arr an array
+     * @param i index to place {@code value} in
+     * @param value the element to put at index {@code i}
+     */
+    protected final void set(int[] arr, int i, int value) {
+        if(raw) {
+            arr[i] = value;
+            return;
+        }
+        if(trace != null) {
+            if(traceLock == null) {
+                traceCountedComparisons();
+                trace.set(arr, i, value);
+            } else {
+                synchronized(traceLock) {
+                    traceCountedComparisons();
+                    trace.set(arr, i, value);
+                }
+            }
+        }
+        write(arr, i, value);
+    }
+
+    private void write(int[] arr, int i, int value) {
+        if(arr == mainArray)
+            metrics.numMainArrayWrites++;
+        else
+            metrics.numAuxArrayWrites++;
+        touch(arr, i);
+        if(arr == trackedArray) {
+            if(columnLock == null) {
+                setTracked(i, value);
+            } else {
+                synchronized(columnLock) {
+                    setTracked(i, value);
+                }
+            }
+        } else {
+            arr[i] = value;
+        }
+    }
+
+    private void setTracked(int i, int value) {
+        final int old = trackedArray[i];
+        trackedArray[i] = value;
+        columns.written(i, old, value);
+    }
+
+    /**
+     * Convenience method to copy a range of elements from one array to another, like {@code System.arraycopy}. This
+     * will increase the number of reads of {@code src} and writes of {@code dest} by {@code length}.
+     * @param src the source array
+     * @param srcPos the first index to read from
+     * @param dest the destination array
+     * @param destPos the first index to write to
+     * @param length the number of elements to copy
+     */
+    protected final void copy(int[] src, int srcPos, int[] dest, int destPos, int length) {
+        if(raw) {
+            System.arraycopy(src, srcPos, dest, destPos, length);
+            return;
+        }
+        if(trace != null) {
+            if(traceLock == null) {
+                traceCountedComparisons();
+                trace.copy(src, srcPos, dest, destPos, length);
+            } else {
+                synchronized(traceLock) {
+                    traceCountedComparisons();
+                    trace.copy(src, srcPos, dest, destPos, length);
+                }
+            }
+        }
+        if(src == mainArray)
+            metrics.numMainArrayReads += length;
+        else
+            metrics.numAuxArrayReads += length;
+        if(dest == mainArray)
+            metrics.numMainArrayWrites += length;
+        else
+            metrics.numAuxArrayWrites += length;
+        if(cache != null) {
+            for(int k = 0; k < length; k++) {
+                touch(src, srcPos + k);
+                touch(dest, destPos + k);
+            }
+        }
+        if(dest == trackedArray) {
+            if(columnLock == null) {
+                copyTracked(src, srcPos, destPos, length);
+            } else {
+                synchronized(columnLock) {
+                    copyTracked(src, srcPos, destPos, length);
+                }
+            }
+        } else {
+            System.arraycopy(src, srcPos, dest, destPos, length);
+        }
+    }
+
+    private void copyTracked(int[] src, int srcPos, int destPos, int length) {
+        final int[] dest = trackedArray;
+        // Copy one element at a time, so that each column sees the value being replaced
+        if(src == dest && srcPos < destPos) {
+            for(int k = length - 1; k >= 0; k--) {
+                final int old = dest[destPos + k];
+                dest[destPos + k] = src[srcPos + k];
+                columns.written(destPos + k, old, dest[destPos + k]);
+            }
+        } else {
+            for(int k = 0; k < length; k++) {
+                final int old = dest[destPos + k];
+                dest[destPos + k] = src[srcPos + k];
+                columns.written(destPos + k, old, dest[destPos + k]);
+            }
+        }
+    }
+
+    /**
+     * Convenience method to compare two elements of an array. This will increment the number of comparisons and array
+     * reads.
+     * @param arr an array
+     * @param i index of the first element
+     * @param j index of the second element
+     * @return a value less than zero, equal to zero, or greater than zero if element {@code i} is less than, equal to,
+     *         or greater than element {@code j}, respectively.
+     */
+    protected final int compare(int[] arr, int i, int j) {
+        if(raw)
+            return Integer.compare(arr[i], arr[j]);
+        if(trace != null) {
+            if(traceLock == null) {
+                traceCountedComparisons();
+                trace.compare(arr, i, j);
+                tracedComparisons++;
+            } else {
+                synchronized(traceLock) {
+                    traceCountedComparisons();
+                    trace.compare(arr, i, j);
+                    tracedComparisons++;
+                }
+            }
+        }
+        metrics.numComparisons++;
+        return Integer.compare(read(arr, i), read(arr, j));
+    }
+
+    /**
+     * Convenience method to get an element of a {@code long} array. Accesses to {@code long} arrays are counted like
+     * those to {@code int} arrays, with the key column of a {@link KeyedAlgorithm} counted as the main array. They are
+     * not drawn by the visualizer and not traced, except for comparisons.
+     * @param arr an array
+     * @param i index of the element to get
+     * @return the element at index {@code i}
+     */
+    protected final long get(long[] arr, int i) {
+        if(!raw) {
+            countReads(arr, 1);
+            touch(arr, i);
+        }
+        return arr[i];
+    }
+
+    /**
+     * Convenience method to set an element of a {@code long} array.
+     * @param arr an array
+     * @param i index to place {@code value} in
+     * @param value the element to put at index {@code i}
+     * @see #get(long[], int)
+     */
+    protected final void set(long[] arr, int i, long value) {
+        if(!raw) {
+            countWrites(arr, 1);
+            touch(arr, i);
+        }
+        arr[i] = value;
+    }
+
+    /**
+     * Convenience method to swap two elements of a {@code long} array.
+     * @param arr an array
+     * @param i index of the first element
+     * @param j index of the second element
+     * @see #get(long[], int)
+     */
+    protected final void swap(long[] arr, int i, int j) {
+        if(!raw) {
+            countReads(arr, 2);
+            countWrites(arr, 2);
+            metrics.numSwaps++;
+            touchSwap(arr, i, j);
+        }
+        final long temp = arr[i];
+        arr[i] = arr[j];
+        arr[j] = temp;
+    }
+
+    /**
+     * Convenience method to copy a range of elements from one {@code long} array to another.
+     * @param src the source array
+     * @param srcPos the first index to read from
+     * @param dest the destination array
+     * @param destPos the first index to write to
+     * @param length the number of elements to copy
+     * @see #get(long[], int)
+     */
+    protected final void copy(long[] src, int srcPos, long[] dest, int destPos, int length) {
+        if(!raw) {
+            countReads(src, length);
+            countWrites(dest, length);
+            if(cache != null) {
+                for(int k = 0; k < length; k++) {
+                    touch(src, srcPos + k);
+                    touch(dest, destPos + k);
+                }
+            }
+        }
+        System.arraycopy(src, srcPos, dest, destPos, length);
+    }
+
+    /**
+     * Convenience method to compare two elements of a {@code long} array as signed values.
+     * @param arr an array
+     * @param i index of the first element
+     * @param j index of the second element
+     * @return a value less than zero, equal to zero, or greater than zero if element {@code i} is less than, equal to,
+     *         or greater than element {@code j}, respectively.
+     * @see #get(long[], int)
+     */
+    protected final int compare(long[] arr, int i, int j) {
+        if(!raw) {
+            countReads(arr, 2);
+            metrics.numComparisons++;
+            touch(arr, i);
+            touch(arr, j);
+        }
+        return Long.compare(arr[i], arr[j]);
+    }
+
+    /**
+     * Convenience method to get an element of a {@link SortableArray}. Arrays on the heap are accessed like
+     * {@code get(int[], int)}. Accesses to other arrays are counted the same way, with the array given to
+     * {@code execute()} counted as the main array, and writes to it are drawn by the visualizer, but they are not
+     * traced.
+     * @param arr an array
+     * @param i index of the element to get
+     * @return the element at index {@code i}
+     */
+    protected final int get(SortableArray arr, int i) {
+        if(arr instanceof SortableArray.HeapArray heap)
+            return get(heap.array(), i);
+        if(!raw) {
+            countReads(arr, 1);
+            touch(arr, i);
+        }
+        return arr.get(i);
+    }
+
+    /**
+     * Convenience method to set an element of a {@link SortableArray}.
+     * @param arr an array
+     * @param i index to place {@code value} in
+     * @param value the element to put at index {@code i}
+     * @see #get(SortableArray, int)
+     */
+    protected final void set(SortableArray arr, int i, int value) {
+        if(arr instanceof SortableArray.HeapArray heap) {
+            set(heap.array(), i, value);
+            return;
+        }
+        if(!raw) {
+            countWrites(arr, 1);
+            touch(arr, i);
+        }
+        write(arr, i, value);
+    }
+
+    /**
+     * Convenience method to swap two elements of a {@link SortableArray}.
+     * @param arr an array
+     * @param i index of the first element
+     * @param j index of the second element
+     * @see #get(SortableArray, int)
+     */
+    protected final void swap(SortableArray arr, int i, int j) {
+        if(arr instanceof SortableArray.HeapArray heap) {
+            swap(heap.array(), i, j);
+            return;
+        }
+        if(!raw) {
+            countReads(arr, 2);
+            countWrites(arr, 2);
+            metrics.numSwaps++;
+            touchSwap(arr, i, j);
+        }
+        final int temp = arr.get(i);
+        write(arr, i, arr.get(j));
+        write(arr, j, temp);
+    }
+
+    /**
+     * Convenience method to copy a range of elements from one {@link SortableArray} to another. The ranges may
+     * overlap.
+     * @param src the source array
+     * @param srcPos the first index to read from
+     * @param dest the destination array
+     * @param destPos the first index to write to
+     * @param length the number of elements to copy
+     * @see #get(SortableArray, int)
+     */
+    protected final void copy(SortableArray src, int srcPos, SortableArray dest, int destPos, int length) {
+        if(src instanceof SortableArray.HeapArray heapSrc && dest instanceof SortableArray.HeapArray heapDest) {
+            copy(heapSrc.array(), srcPos, heapDest.array(), destPos, length);
+            return;
+        }
+        if(!raw) {
+            countReads(src, length);
+            countWrites(dest, length);
+            if(cache != null) {
+                for(int k = 0; k < length; k++) {
+                    touch(src, srcPos + k);
+                    touch(dest, destPos + k);
+                }
+            }
+        }
+        if(raw || !isTracked(dest)) {
+            if(src instanceof OffHeapArray offHeap && dest instanceof SortableArray.HeapArray heap) {
+                offHeap.copyTo(srcPos, heap.array(), destPos, length);
+                return;
+            }
+            if(src instanceof SortableArray.HeapArray heap && dest instanceof OffHeapArray offHeap) {
+                offHeap.copyFrom(heap.array(), srcPos, destPos, length);
+                return;
+            }
+        }
+        if(src == dest && srcPos < destPos) {
+            for(int k = length - 1; k >= 0; k--)
+                write(dest, destPos + k, src.get(srcPos + k));
+        } else {
+            for(int k = 0; k < length; k++)
+                write(dest, destPos + k, src.get(srcPos + k));
+        }
+    }
+
+    /**
+     * Convenience method to compare two elements of a {@link SortableArray}.
+     * @param arr an array
+     * @param i index of the first element
+     * @param j index of the second element
+     * @return a value less than zero, equal to zero, or greater than zero if element {@code i} is less than, equal to,
+     *         or greater than element {@code j}, respectively.
+     * @see #get(SortableArray, int)
+     */
+    protected final int compare(SortableArray arr, int i, int j) {
+        if(arr instanceof SortableArray.HeapArray heap)
+            return compare(heap.array(), i, j);
+        if(!raw) {
+            countReads(arr, 2);
+            metrics.numComparisons++;
+            touch(arr, i);
+            touch(arr, j);
+        }
+        return Integer.compare(arr.get(i), arr.get(j));
+    }
+
+    private void write(SortableArray arr, int i, int value) {
+        if(raw || !isTracked(arr)) {
+            arr.set(i, value);
+        } else if(columnLock == null) {
+            setTracked(arr, i, value);
+        } else {
+            synchronized(columnLock) {
+                setTracked(arr, i, value);
+            }
+        }
+    }
+
+    private void setTracked(SortableArray arr, int i, int value) {
+        final int old = arr.get(i);
+        arr.set(i, value);
+        columns.written(i, old, value);
+    }
+
+    /**
+     * Views of heap arrays are only passed here when copying between them and arrays off the heap, so they are
+     * compared by the array they view.
+     */
+    private boolean isMain(SortableArray arr) {
+        return arr instanceof SortableArray.HeapArray heap ? heap.array() == mainArray : arr == mainSortable;
+    }
+
+    private boolean isTracked(SortableArray arr) {
+        return arr instanceof SortableArray.HeapArray heap ? heap.array() == trackedArray : arr == trackedSortable;
+    }
+
+    private void countReads(SortableArray arr, int count) {
+        if(isMain(arr))
+            metrics.numMainArrayReads += count;
+        else
+            metrics.numAuxArrayReads += count;
+    }
+
+    private void countWrites(SortableArray arr, int count) {
+        if(isMain(arr))
+            metrics.numMainArrayWrites += count;
+        else
+            metrics.numAuxArrayWrites += count;
+    }
+
+    private void countReads(long[] arr, int count) {
+        if(arr == mainKeys)
+            metrics.numMainArrayReads += count;
+        else
+            metrics.numAuxArrayReads += count;
+    }
+
+    private void countWrites(long[] arr, int count) {
+        if(arr == mainKeys)
+            metrics.numMainArrayWrites += count;
+        else
+            metrics.numAuxArrayWrites += count;
+    }
+
+    private void touch(int[] arr, int i) {
+        if(cache != null)
+            cache.access(arr, arr.length, i, Integer.BYTES, metrics);
+    }
+
+    private void touch(long[] arr, int i) {
+        if(cache != null)
+            cache.access(arr, arr.length, i, Long.BYTES, metrics);
+    }
+
+    /**
+     * Views of heap arrays are simulated as the array they view, like in {@code isMain()}.
+     */
+    private void touch(SortableArray arr, int i) {
+        if(cache == null)
+            return;
+        final Object array = arr instanceof SortableArray.HeapArray heap ? heap.array() : arr;
+        cache.access(array, arr.length(), i, Integer.BYTES, metrics);
+    }
+
+    /**
+     * A swap reads both elements, then writes both.
+     */
+    private void touchSwap(long[] arr, int i, int j) {
+        touch(arr, i);
+        touch(arr, j);
+        touch(arr, i);
+        touch(arr, j);
+    }
+
+    private void touchSwap(SortableArray arr, int i, int j) {
+        touch(arr, i);
+        touch(arr, j);
+        touch(arr, i);
+        touch(arr, j);
+    }
+}
@@ -0,0 +1,77 @@
+package wallacewatler.sortingvisualizer;
+
+/**
+ * A quicksort with a median-of-three pivot that switches to heapsort for any partition nested more than
+ * {@code 2 log2(n)} levels deep, so that it takes {@code O(n log n)} time even on inputs built to defeat the pivot
+ * choice. Small partitions are finished with insertion sort.
+ * @see QuickSort
+ */
+public class IntroSort extends GuardedQuickSort {
+    public IntroSort(int maxElementsForInsertion) {
+        super("Introsort", maxElementsForInsertion);
+    }
+
+    @Override
+    protected void execute(SortableArray arr) {
+        i = j = -1;
+        if(arr.length() < 2)
+            return;
+
+        try {
+            sort(arr, 0, arr.length() - 1, 2 * log2(arr.length()));
+        } catch(InterruptedException e) {
+            return;
+        }
+    }
+
+    private void sort(SortableArray arr, int low, int high, int depthLimit) throws InterruptedException {
+        while(high - low >= Math.max(maxElementsForInsertion, 2)) {
+            if(depthLimit-- == 0) {
+                heapSort(arr, low, high);
+                return;
+            }
+
+            // Recurse into the smaller partition, so that the stack stays logarithmic
+            final int p = partition(arr, low, high);
+            if(p - low < high - p) {
+                sort(arr, low, p, depthLimit);
+                low = p + 1;
+            } else {
+                sort(arr, p + 1, high, depthLimit);
+                high = p;
+            }
+        }
+        insertionSort(arr, low, high);
+    }
+
+    /**
+     * Partition around the median of the first, middle and last elements.
+     * @return the last index of the left partition
+     */
+    private int partition(SortableArray arr, int low, int high) throws InterruptedException {
+        final int mid = low + (high - low) / 2;
+        sort3(arr, low, mid, high);
+        final int pivot = get(arr, mid);
+        i = low - 1;
+        j = high + 1;
+        while(true) {
+            do {
+                awaitStep();
+                i++;
+                metrics.numComparisons++;
+            } while(get(arr, i) < pivot);
+
+            do {
+                awaitStep();
+                j--;
+                metrics.numComparisons++;
+            } while(get(arr, j) > pivot);
+
+            if(i >= j)
+                return j;
+
+            awaitStep();
+            swap(arr, i, j);
+        }
+    }
+}
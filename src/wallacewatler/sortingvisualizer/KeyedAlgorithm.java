@@ -0,0 +1,176 @@
+package wallacewatler.sortingvisualizer;
+
+/**
+ * An algorithm that sorts records made of a 64-bit key and an {@code int} payload, such as a row ID, held in two
+ * parallel arrays. Keys are primitive {@code long}s throughout, so nothing is boxed. {@code double} keys are sorted
+ * through {@code sortableBits()}, which maps them onto {@code long}s in the total order of {@code Double.compare}.
+ * <p>
+ * Implementations go in {@code executeKeyed()} and access keys through the {@code long[]} overloads of the convenience
+ * methods, which count the key column as the main array, and move whole records with the overloads taking both columns.
+ * The payload column may be null, in which case only keys are sorted.
+ * <p>
+ * In the visualizer, the displayed array is the payload column. Keys are derived from its values with a mapping that
+ * preserves their order, chosen by the {@link KeyType}, so the bars show the records being sorted by key.
+ */
+public abstract class KeyedAlgorithm extends Algorithm {
+    /** The kind of keys derived from the displayed array when this algorithm runs in the visualizer. */
+    public final KeyType keyType;
+
+    /**
+     * @param name the display name of this algorithm, to which the key type is appended
+     * @param keyType the kind of keys to derive from the displayed array
+     */
+    protected KeyedAlgorithm(String name, KeyType keyType) {
+        super(name + " - " + keyType.label + " keys");
+        this.keyType = keyType;
+    }
+
+    /**
+     * Sort records by key at full speed, without instrumentation or step gating. Must not be called while this
+     * algorithm is executing elsewhere.
+     * @param keys the key column
+     * @param rows the payload column, of the same length, or null to sort only keys
+     */
+    public final void sort(long[] keys, int[] rows) {
+        if(rows != null && rows.length != keys.length)
+            throw new IllegalArgumentException("The key and payload columns differ in length");
+
+        reset();
+        setUnthrottled(true);
+        setRaw(true);
+        try {
+            useMainKeys(keys);
+            executeKeyed(keys, rows);
+        } finally {
+            setRaw(false);
+            setUnthrottled(false);
+        }
+    }
+
+    /**
+     * Sort records by {@code double} key in the order of {@code Double.compare}: negative zero before positive zero, and
+     * NaN after everything else. Every NaN comes out as the canonical NaN.
+     * @param keys the key column
+     * @param rows the payload column, of the same length, or null to sort only keys
+     */
+    public final void sort(double[] keys, int[] rows) {
+        final long[] bits = new long[keys.length];
+        for(int i = 0; i < keys.length; i++)
+            bits[i] = sortableBits(keys[i]);
+        sort(bits, rows);
+        for(int i = 0; i < keys.length; i++)
+            keys[i] = fromSortableBits(bits[i]);
+    }
+
+    /**
+     * Map a {@code double} onto a {@code long} such that comparing the results as signed values orders them like
+     * {@code Double.compare}. Flipping every bit but the sign of negative values reverses their order, which is
+     * backwards in the IEEE 754 bit pattern.
+     * @param value a double
+     * @return the sortable bits of {@code value}
+     */
+    public static long sortableBits(double value) {
+        final long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * @param bits the result of {@code sortableBits()}
+     * @return the double that was mapped onto {@code bits}
+     */
+    public static double fromSortableBits(long bits) {
+        return Double.longBitsToDouble(bits ^ ((bits >> 63) & Long.MAX_VALUE));
+    }
+
+    /**
+     * Derive keys from the displayed array and sort it along with them.
+     */
+    @Override
+    protected final void execute(int[] arr) {
+        final long[] keys = new long[arr.length];
+        for(int i = 0; i < arr.length; i++)
+            keys[i] = keyType.keyOf(arr[i], arr.length);
+        useMainKeys(keys);
+        executeKeyed(keys, arr);
+    }
+
+    /**
+     * The procedure that will be visualized. If the procedure is interrupted, it should stop executing and return.
+     * @param keys the key column
+     * @param rows the payload column, which is moved along with the keys, or null
+     */
+    protected abstract void executeKeyed(long[] keys, int[] rows);
+
+    /**
+     * Swap two records, counted as a swap of each column.
+     * @param keys the key column
+     * @param rows the payload column, or null
+     * @param i index of the first record
+     * @param j index of the second record
+     */
+    protected final void swap(long[] keys, int[] rows, int i, int j) {
+        swap(keys, i, j);
+        if(rows != null)
+            swap(rows, i, j);
+    }
+
+    /**
+     * Copy a record from one pair of columns to another.
+     * @param srcKeys the source key column
+     * @param srcRows the source payload column, or null if {@code destRows} is null
+     * @param srcPos the index of the record to copy
+     * @param destKeys the destination key column
+     * @param destRows the destination payload column, or null
+     * @param destPos the index to copy the record to
+     */
+    protected final void move(long[] srcKeys, int[] srcRows, int srcPos, long[] destKeys, int[] destRows, int destPos) {
+        set(destKeys, destPos, get(srcKeys, srcPos));
+        if(destRows != null)
+            set(destRows, destPos, get(srcRows, srcPos));
+    }
+
+    /**
+     * Copy a range of records from one pair of columns to another.
+     * @param srcKeys the source key column
+     * @param srcRows the source payload column, or null if {@code destRows} is null
+     * @param srcPos the first index to read from
+     * @param destKeys the destination key column
+     * @param destRows the destination payload column, or null
+     * @param destPos the first index to write to
+     * @param length the number of records to copy
+     */
+    protected final void copy(long[] srcKeys, int[] srcRows, int srcPos, long[] destKeys, int[] destRows, int destPos,
+                              int length) {
+        copy(srcKeys, srcPos, destKeys, destPos, length);
+        if(destRows != null)
+            copy(srcRows, srcPos, destRows, destPos, length);
+    }
+
+    /**
+     * The kind of keys derived from the displayed array in the visualizer.
+     */
+    public enum KeyType {
+        /** Signed keys spread over almost the whole range of {@code long}, so that subtracting two keys overflows. */
+        LONG("long"),
+        /** Doubles of both signs with fractional parts. */
+        DOUBLE("double");
+
+        public final String label;
+
+        KeyType(String label) {
+            this.label = label;
+        }
+
+        /**
+         * @param value an element of the displayed array, from 0 to {@code n - 1}
+         * @param n the length of the displayed array
+         * @return the key of the element, in the same order as the elements
+         */
+        long keyOf(int value, int n) {
+            return switch(this) {
+                case LONG -> (value - n / 2) * (Long.MAX_VALUE / Math.max(2, n) * 2);
+                case DOUBLE -> sortableBits((value - n / 2) / 4.0);
+            };
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package wallacewatler.sortingvisualizer;
+
+/**
+ * Top-down merge sort of records through auxiliary key and payload columns. Stable, so records with equal keys keep
+ * their order, and ranges that are already in order are not merged.
+ */
+public class KeyedMergeSort extends KeyedAlgorithm {
+    private int i = -1;
+    private int j = -1;
+    private int k = -1;
+
+    public KeyedMergeSort(KeyType keyType) {
+        super("Keyed Merge sort", keyType);
+    }
+
+    @Override
+    protected void executeKeyed(long[] keys, int[] rows) {
+        final long[] auxKeys = new long[keys.length];
+        final int[] auxRows = rows == null ? null : new int[rows.length];
+        try {
+            mergeSort(keys, rows, auxKeys, auxRows, 0, keys.length);
+        } catch(InterruptedException e) {
+            return;
+        }
+    }
+
+    private void mergeSort(long[] keys, int[] rows, long[] auxKeys, int[] auxRows, int from, int to)
+            throws InterruptedException {
+        if(to - from < 2)
+            return;
+
+        final int mid = from + (to - from) / 2;
+        mergeSort(keys, rows, auxKeys, auxRows, from, mid);
+        mergeSort(keys, rows, auxKeys, auxRows, mid, to);
+
+        awaitStep();
+        if(compare(keys, mid - 1, mid) <= 0)
+            return;
+
+        copy(keys, rows, from, auxKeys, auxRows, from, to - from);
+        i = from;
+        j = mid;
+        for(k = from; k < to; k++) {
+            awaitStep();
+            if(i < mid && j < to)
+                metrics.numComparisons++;
+            if(j >= to || (i < mid && get(auxKeys, i) <= get(auxKeys, j)))
+                move(auxKeys, auxRows, i++, keys, rows, k);
+            else
+                move(auxKeys, auxRows, j++, keys, rows, k);
+        }
+    }
+
+    @Override
+    public int[] pointsOfInterest() {
+        return new int[] {i, j, k};
+    }
+}
@@ -0,0 +1,70 @@
+package wallacewatler.sortingvisualizer;
+
+/**
+ * Sorts records by recursively partitioning them in two around the key of the middle record. The smaller partition is
+ * sorted first, so that the recursion depth stays logarithmic. Not stable.
+ */
+public class KeyedQuickSort extends KeyedAlgorithm {
+    private int i = -1;
+    private int j = -1;
+
+    public KeyedQuickSort(KeyType keyType) {
+        super("Keyed Quicksort", keyType);
+    }
+
+    @Override
+    protected void executeKeyed(long[] keys, int[] rows) {
+        try {
+            quickSort(keys, rows, 0, keys.length - 1);
+        } catch(InterruptedException e) {
+            return;
+        }
+    }
+
+    private void quickSort(long[] keys, int[] rows, int low, int high) throws InterruptedException {
+        while(low < high) {
+            final int p = partition(keys, rows, low, high);
+            if(p - low < high - p) {
+                quickSort(keys, rows, low, p);
+                low = p + 1;
+            } else {
+                quickSort(keys, rows, p + 1, high);
+                high = p;
+            }
+        }
+    }
+
+    /**
+     * Hoare partition.
+     * @return an index {@code p} such that no key of {@code [low, p]} is greater than any key of {@code [p + 1, high]}
+     */
+    private int partition(long[] keys, int[] rows, int low, int high) throws InterruptedException {
+        final long pivot = get(keys, low + (high - low) / 2);
+        i = low - 1;
+        j = high + 1;
+        while(true) {
+            do {
+                awaitStep();
+                i++;
+                metrics.numComparisons++;
+            } while(get(keys, i) < pivot);
+
+            do {
+                awaitStep();
+                j--;
+                metrics.numComparisons++;
+            } while(get(keys, j) > pivot);
+
+            if(i >= j)
+                return j;
+
+            awaitStep();
+            swap(keys, rows, i, j);
+        }
+    }
+
+    @Override
+    public int[] pointsOfInterest() {
+        return new int[] {i, j};
+    }
+}
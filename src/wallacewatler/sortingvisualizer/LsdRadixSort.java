@@ -0,0 +1,66 @@
+package wallacewatler.sortingvisualizer;
+
+/**
+ * Sorts an array one digit at a time, starting from the least significant digit. Each pass distributes the elements
+ * into a buffer by the value of one digit, keeping elements with equal digits in order, so after the last pass the
+ * array is sorted. The digits of every element are counted in a single pass up front, and digits on which every element
+ * agrees are skipped, so small values are sorted in fewer passes.
+ */
+public class LsdRadixSort extends RadixAlgorithm {
+    public LsdRadixSort(int digitBits) {
+        super("LSD Radix sort", digitBits);
+    }
+
+    @Override
+    protected void execute(SortableArray arr) {
+        final int n = arr.length();
+        i = j = -1;
+        if(n < 2)
+            return;
+
+        try {
+            final int passes = (Integer.SIZE + digitBits - 1) / digitBits;
+            final int[][] counts = new int[passes][radix];
+            for(i = 0; i < n; i++) {
+                awaitStep();
+                final int value = get(arr, i);
+                for(int p = 0; p < passes; p++) {
+                    final int d = digit(value, p * digitBits);
+                    set(counts[p], d, get(counts[p], d) + 1);
+                }
+            }
+
+            SortableArray src = arr;
+            SortableArray dest = null;
+            for(int p = 0; p < passes; p++) {
+                final int shift = p * digitBits;
+                if(get(counts[p], digit(get(src, 0), shift)) == n)
+                    continue;
+
+                if(dest == null)
+                    dest = allocateLike(arr, n);
+                final int[] next = bucketStarts(counts[p], 0);
+                for(i = 0; i < n; i++) {
+                    awaitStep();
+                    final int value = get(src, i);
+                    final int d = digit(value, shift);
+                    j = get(next, d);
+                    set(dest, j, value);
+                    set(next, d, j + 1);
+                }
+                final SortableArray temp = src;
+                src = dest;
+                dest = temp;
+            }
+
+            if(src != arr) {
+                for(i = 0; i < n; i++) {
+                    awaitStep();
+                    set(arr, i, get(src, i));
+                }
+            }
+        } catch(InterruptedException e) {
+            return;
+        }
+    }
+}
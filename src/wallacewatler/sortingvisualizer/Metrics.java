@@ -1,31 +1,61 @@
 package wallacewatler.sortingvisualizer;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 /**
  * Metrics stores operational data for an algorithm. These can be used to compare algorithms in terms of number of
  * comparisons, swaps, and array accesses. While these metrics can give a rough estimate of algorithm speed, they
  * should not be relied upon because there are contributing factors outside what can be measured here.
+ * <p>
+ * The counters are plain fields so that counting costs as little as possible, which means a single {@code Metrics}
+ * must only be updated by one thread. Algorithms that update metrics from several threads should give each thread its
+ * own stripe from {@code stripe()}; stripes are included whenever the metrics are recorded.
+ * <p>
+ * Algorithms given a {@link CacheSimulator} also count the cache hits and misses of their array accesses, which account
+ * for memory locality and so predict speed much better. Levels that are not simulated count nothing.
  */
 public final class Metrics {
     /**
      * Number of comparisons. A comparison is any operation that compares two elements of an array. Index comparisons
      * are not counted.
      */
-    public int numComparisons;
+    public long numComparisons;
     /**
      * Number of swaps. A swap is defined by two elements that switch places. Element removals, shifts, and insertions
      * are not counted.
      */
-    public int numSwaps;
-    /** Number of main array reads. */
-    public int numMainArrayReads;
+    public long numSwaps;
+    /** Number of main array reads. The main array is the one the algorithm is executed on. */
+    public long numMainArrayReads;
     /** Number of main array writes. */
-    public int numMainArrayWrites;
-    /** Number of auxiliary array reads. */
-    public int numAuxArrayReads;
+    public long numMainArrayWrites;
+    /** Number of auxiliary array reads. An auxiliary array is any array other than the main array. */
+    public long numAuxArrayReads;
     /** Number of auxiliary array writes. */
-    public int numAuxArrayWrites;
+    public long numAuxArrayWrites;
+    /**
+     * Number of elements read from disk into memory, by algorithms that keep their data on disk. These transfers are
+     * also counted as accesses to the arrays involved.
+     */
+    public long numDiskReads;
+    /** Number of elements written from memory to disk. */
+    public long numDiskWrites;
+    /** Number of simulated array accesses found in the L1 cache. */
+    public long numL1Hits;
+    /** Number of simulated array accesses not found in the L1 cache. */
+    public long numL1Misses;
+    /** Number of simulated array accesses that missed L1 and were found in the L2 cache. */
+    public long numL2Hits;
+    /** Number of simulated array accesses not found in the L2 cache either. */
+    public long numL2Misses;
+    /** Number of simulated array accesses that missed L2 and were found in the L3 cache. */
+    public long numL3Hits;
+    /** Number of simulated array accesses not found in the L3 cache either, which go to memory. */
+    public long numL3Misses;
+    private final List<Metrics> stripes = new CopyOnWriteArrayList<>();
 
-    /** Resets all metrics to zero. */
+    /** Resets all metrics to zero and removes all stripes. */
     public void clear() {
         numComparisons = 0;
         numSwaps = 0;
@@ -33,22 +63,106 @@ public final class Metrics {
         numMainArrayWrites = 0;
         numAuxArrayReads = 0;
         numAuxArrayWrites = 0;
+        numDiskReads = 0;
+        numDiskWrites = 0;
+        numL1Hits = 0;
+        numL1Misses = 0;
+        numL2Hits = 0;
+        numL2Misses = 0;
+        numL3Hits = 0;
+        numL3Misses = 0;
+        stripes.clear();
+    }
+
+    /**
+     * Add the counts of a record to these metrics.
+     * @param record the counts to add
+     */
+    public void add(Record record) {
+        numComparisons += record.numComparisons;
+        numSwaps += record.numSwaps;
+        numMainArrayReads += record.numMainArrayReads;
+        numMainArrayWrites += record.numMainArrayWrites;
+        numAuxArrayReads += record.numAuxArrayReads;
+        numAuxArrayWrites += record.numAuxArrayWrites;
+        numDiskReads += record.numDiskReads;
+        numDiskWrites += record.numDiskWrites;
+        numL1Hits += record.numL1Hits;
+        numL1Misses += record.numL1Misses;
+        numL2Hits += record.numL2Hits;
+        numL2Misses += record.numL2Misses;
+        numL3Hits += record.numL3Hits;
+        numL3Misses += record.numL3Misses;
+    }
+
+    /**
+     * @param level the cache level that held an accessed element, from 0 for L1
+     */
+    void countCacheHit(int level) {
+        switch(level) {
+            case 0 -> numL1Hits++;
+            case 1 -> numL2Hits++;
+            case 2 -> numL3Hits++;
+            default -> throw new IllegalArgumentException("No counters for cache level " + level);
+        }
+    }
+
+    /**
+     * @param level a cache level that did not hold an accessed element, from 0 for L1
+     */
+    void countCacheMiss(int level) {
+        switch(level) {
+            case 0 -> numL1Misses++;
+            case 1 -> numL2Misses++;
+            case 2 -> numL3Misses++;
+            default -> throw new IllegalArgumentException("No counters for cache level " + level);
+        }
     }
 
     /**
-     * Save the current metrics into an immutable record. Future changes to these metrics will not affect the returned
-     * record.
+     * Create a new set of counters for a worker thread. The counts of the stripe are added to these metrics whenever
+     * they are recorded, until these metrics are cleared.
+     * @return the new stripe, with all counts at zero
+     */
+    public Metrics stripe() {
+        final Metrics stripe = new Metrics();
+        stripes.add(stripe);
+        return stripe;
+    }
+
+    /**
+     * @return records of the stripes of these metrics, in the order they were created
+     */
+    public List<Record> stripeRecords() {
+        return stripes.stream().map(Metrics::record).toList();
+    }
+
+    /**
+     * Save the current metrics into an immutable record, including all stripes. Future changes to these metrics will
+     * not affect the returned record. If the metrics are being updated while this is called, the record may miss the
+     * most recent updates.
      * @return An immutable record of the current metrics.
      */
     public Record record() {
-        return new Record(
+        Record record = new Record(
                 numComparisons,
                 numSwaps,
                 numMainArrayReads,
                 numMainArrayWrites,
                 numAuxArrayReads,
-                numAuxArrayWrites
+                numAuxArrayWrites,
+                numDiskReads,
+                numDiskWrites,
+                numL1Hits,
+                numL1Misses,
+                numL2Hits,
+                numL2Misses,
+                numL3Hits,
+                numL3Misses
         );
+        for(Metrics stripe : stripes)
+            record = record.plus(stripe.record());
+        return record;
     }
 
     /**
@@ -59,13 +173,78 @@ public final class Metrics {
      * @param numMainArrayWrites
      * @param numAuxArrayReads
      * @param numAuxArrayWrites
+     * @param numDiskReads
+     * @param numDiskWrites
+     * @param numL1Hits
+     * @param numL1Misses
+     * @param numL2Hits
+     * @param numL2Misses
+     * @param numL3Hits
+     * @param numL3Misses
      * @see Metrics
      */
     public record Record(
-            int numComparisons,
-            int numSwaps,
-            int numMainArrayReads,
-            int numMainArrayWrites,
-            int numAuxArrayReads,
-            int numAuxArrayWrites) {}
+            long numComparisons,
+            long numSwaps,
+            long numMainArrayReads,
+            long numMainArrayWrites,
+            long numAuxArrayReads,
+            long numAuxArrayWrites,
+            long numDiskReads,
+            long numDiskWrites,
+            long numL1Hits,
+            long numL1Misses,
+            long numL2Hits,
+            long numL2Misses,
+            long numL3Hits,
+            long numL3Misses) {
+        /**
+         * @param other another record
+         * @return a record with the counts of both records added together
+         */
+        public Record plus(Record other) {
+            return new Record(
+                    numComparisons + other.numComparisons,
+                    numSwaps + other.numSwaps,
+                    numMainArrayReads + other.numMainArrayReads,
+                    numMainArrayWrites + other.numMainArrayWrites,
+                    numAuxArrayReads + other.numAuxArrayReads,
+                    numAuxArrayWrites + other.numAuxArrayWrites,
+                    numDiskReads + other.numDiskReads,
+                    numDiskWrites + other.numDiskWrites,
+                    numL1Hits + other.numL1Hits,
+                    numL1Misses + other.numL1Misses,
+                    numL2Hits + other.numL2Hits,
+                    numL2Misses + other.numL2Misses,
+                    numL3Hits + other.numL3Hits,
+                    numL3Misses + other.numL3Misses
+            );
+        }
+
+        /**
+         * @param level a cache level, from 0 for L1
+         * @return the number of simulated accesses found in that level
+         */
+        public long cacheHits(int level) {
+            return switch(level) {
+                case 0 -> numL1Hits;
+                case 1 -> numL2Hits;
+                case 2 -> numL3Hits;
+                default -> 0;
+            };
+        }
+
+        /**
+         * @param level a cache level, from 0 for L1
+         * @return the number of simulated accesses that reached that level and missed it
+         */
+        public long cacheMisses(int level) {
+            return switch(level) {
+                case 0 -> numL1Misses;
+                case 1 -> numL2Misses;
+                case 2 -> numL3Misses;
+                default -> 0;
+            };
+        }
+    }
 }
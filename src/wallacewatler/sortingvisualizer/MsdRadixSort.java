@@ -0,0 +1,61 @@
+package wallacewatler.sortingvisualizer;
+
+/**
+ * Sorts an array one digit at a time, starting from the most significant digit. The elements of a range are
+ * distributed into buckets by the value of one digit through a buffer, and then each bucket is sorted by the next
+ * digit. Short buckets are finished with insertion sort, and a digit on which every element of a range agrees is
+ * skipped without moving anything.
+ */
+public class MsdRadixSort extends RadixAlgorithm {
+    public MsdRadixSort(int digitBits) {
+        super("MSD Radix sort", digitBits);
+    }
+
+    @Override
+    protected void execute(SortableArray arr) {
+        i = j = -1;
+        if(arr.length() < 2)
+            return;
+
+        try {
+            sort(arr, allocateLike(arr, arr.length()), 0, arr.length(), topShift());
+        } catch(InterruptedException e) {
+            return;
+        }
+    }
+
+    private void sort(SortableArray arr, SortableArray buffer, int from, int to, int shift)
+            throws InterruptedException {
+        if(to - from <= INSERTION_THRESHOLD) {
+            insertionSort(arr, from, to);
+            return;
+        }
+
+        final int[] counts = histogram(arr, from, to, shift);
+        final int[] starts = bucketStarts(counts, from);
+        if(get(counts, digit(get(arr, from), shift)) < to - from) {
+            final int[] next = starts.clone();
+            for(i = from; i < to; i++) {
+                awaitStep();
+                final int value = get(arr, i);
+                final int d = digit(value, shift);
+                j = get(next, d);
+                set(buffer, j, value);
+                set(next, d, j + 1);
+            }
+            for(i = from; i < to; i++) {
+                awaitStep();
+                set(arr, i, get(buffer, i));
+            }
+        }
+
+        if(shift == 0)
+            return;
+        for(int b = 0; b < radix; b++) {
+            final int start = get(starts, b);
+            final int end = get(starts, b + 1);
+            if(end - start > 1)
+                sort(arr, buffer, start, end, shift - digitBits);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package wallacewatler.sortingvisualizer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An array of {@code int}s outside the Java heap, either in native memory or in a memory-mapped file, so that its size
+ * is not limited by the heap and its contents are never moved by the garbage collector. A file-backed array can be
+ * larger than physical memory, with the operating system paging it in and out.
+ * <p>
+ * The elements are held in chunks of {@code 2^26}, each a direct buffer in the native byte order, since a single buffer
+ * cannot hold more than 2 GB. The memory of an array is released by {@code close()}, or otherwise once the array is
+ * no longer reachable.
+ */
+public final class OffHeapArray implements SortableArray, Closeable {
+    private static final int CHUNK_SHIFT = 26;
+    private static final int CHUNK_LENGTH = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_LENGTH - 1;
+    /** {@code Unsafe.invokeCleaner()}, which frees a direct buffer right away, or null if it is not available. */
+    private static final Method INVOKE_CLEANER = findInvokeCleaner();
+    private static final Object UNSAFE = INVOKE_CLEANER == null ? null : findUnsafe();
+
+    private final int length;
+    /** The chunks of elements, each set to null once it is released. */
+    private final IntBuffer[] chunks;
+    /** The buffers backing {@code chunks}. */
+    private final ByteBuffer[] buffers;
+    /** True if {@code buffers} are mapped from a file. */
+    private final boolean mapped;
+
+    private OffHeapArray(int length, IntBuffer[] chunks, ByteBuffer[] buffers, boolean mapped) {
+        this.length = length;
+        this.chunks = chunks;
+        this.buffers = buffers;
+        this.mapped = mapped;
+    }
+
+    /**
+     * Allocate an array in native memory, filled with zeros.
+     * @param length the number of elements
+     * @return the array
+     */
+    public static OffHeapArray allocate(int length) {
+        final IntBuffer[] chunks = new IntBuffer[chunkCount(length)];
+        final ByteBuffer[] buffers = new ByteBuffer[chunks.length];
+        for(int c = 0; c < chunks.length; c++) {
+            buffers[c] = ByteBuffer.allocateDirect(chunkLength(length, c) * Integer.BYTES);
+            chunks[c] = buffers[c].order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+        return new OffHeapArray(length, chunks, buffers, false);
+    }
+
+    /**
+     * @param arr an array on the heap
+     * @return a new array in native memory with the same elements
+     */
+    public static OffHeapArray copyOf(int[] arr) {
+        final OffHeapArray array = allocate(arr.length);
+        array.copyFrom(arr, 0, 0, arr.length);
+        return array;
+    }
+
+    /**
+     * Map a file of {@code int}s in the native byte order, such as an input of an {@link InputCache}. Writes to the
+     * array go to the file. The file is created if it does not exist, and extended with zeros if it is too short.
+     * @param file the file to map
+     * @param length the number of elements
+     * @return the array
+     * @throws IOException if the file could not be mapped
+     */
+    public static OffHeapArray map(Path file, int length) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE)) {
+            return map(channel, FileChannel.MapMode.READ_WRITE, length);
+        }
+    }
+
+    /**
+     * Map a file of {@code int}s in the native byte order, such as an input of an {@link InputCache}, without ever
+     * changing it. Pages of the file are copied into private memory as they are first written, so sorting the array
+     * leaves the file as it was. The file must still be writable, since the mapping could write to it.
+     * @param file the file to map
+     * @return the array, as long as the file
+     * @throws IOException if the file could not be mapped, or is too large
+     */
+    public static OffHeapArray mapPrivate(Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final long length = channel.size() / Integer.BYTES;
+            if(length > Integer.MAX_VALUE)
+                throw new IOException("Too many elements in " + file);
+            return map(channel, FileChannel.MapMode.PRIVATE, (int) length);
+        }
+    }
+
+    private static OffHeapArray map(FileChannel channel, FileChannel.MapMode mode, int length) throws IOException {
+        final IntBuffer[] chunks = new IntBuffer[chunkCount(length)];
+        final MappedByteBuffer[] mapped = new MappedByteBuffer[chunks.length];
+        for(int c = 0; c < chunks.length; c++) {
+            mapped[c] = channel.map(mode, (long) c * CHUNK_LENGTH * Integer.BYTES,
+                    (long) chunkLength(length, c) * Integer.BYTES);
+            chunks[c] = mapped[c].order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+        return new OffHeapArray(length, chunks, mapped, true);
+    }
+
+    private static int chunkCount(int length) {
+        if(length < 0)
+            throw new IllegalArgumentException("Negative length " + length);
+        return (int) (((long) length + CHUNK_LENGTH - 1) >>> CHUNK_SHIFT);
+    }
+
+    private static int chunkLength(int length, int chunk) {
+        return Math.min(CHUNK_LENGTH, length - chunk * CHUNK_LENGTH);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public int get(int i) {
+        return chunks[i >>> CHUNK_SHIFT].get(i & CHUNK_MASK);
+    }
+
+    @Override
+    public void set(int i, int value) {
+        chunks[i >>> CHUNK_SHIFT].put(i & CHUNK_MASK, value);
+    }
+
+    /**
+     * Copy elements from an array on the heap into this array in bulk.
+     * @param src the source array
+     * @param srcPos the first index to read from
+     * @param destPos the first index of this array to write to
+     * @param count the number of elements to copy
+     */
+    public void copyFrom(int[] src, int srcPos, int destPos, int count) {
+        while(count > 0) {
+            final int offset = destPos & CHUNK_MASK;
+            final int n = Math.min(count, CHUNK_LENGTH - offset);
+            chunks[destPos >>> CHUNK_SHIFT].put(offset, src, srcPos, n);
+            srcPos += n;
+            destPos += n;
+            count -= n;
+        }
+    }
+
+    /**
+     * Copy elements from this array into an array on the heap in bulk.
+     * @param srcPos the first index of this array to read from
+     * @param dest the destination array
+     * @param destPos the first index to write to
+     * @param count the number of elements to copy
+     */
+    public void copyTo(int srcPos, int[] dest, int destPos, int count) {
+        while(count > 0) {
+            final int offset = srcPos & CHUNK_MASK;
+            final int n = Math.min(count, CHUNK_LENGTH - offset);
+            chunks[srcPos >>> CHUNK_SHIFT].get(offset, dest, destPos, n);
+            srcPos += n;
+            destPos += n;
+            count -= n;
+        }
+    }
+
+    /**
+     * Write changes to a file-backed array out to its file. Does nothing for arrays in native memory, or mapped
+     * privately.
+     */
+    public void force() {
+        if(!mapped)
+            return;
+        for(int c = 0; c < buffers.length; c++) {
+            if(chunks[c] != null && !buffers[c].isReadOnly())
+                ((MappedByteBuffer) buffers[c]).force();
+        }
+    }
+
+    /**
+     * Free the native memory of this array, or unmap it from its file, right away rather than once the array is no
+     * longer reachable, so that a loop allocating large arrays does not hold on to all of them until the garbage
+     * collector runs. Changes to a file-backed array are not forced first. The array must not be used afterwards, and
+     * accesses to it throw {@code NullPointerException}. If the JDK does not allow freeing buffers early, this only
+     * stops the array from being used.
+     */
+    @Override
+    public void close() {
+        for(int c = 0; c < chunks.length; c++) {
+            if(chunks[c] == null)
+                continue;
+            chunks[c] = null;
+            if(INVOKE_CLEANER != null && UNSAFE != null) {
+                try {
+                    INVOKE_CLEANER.invoke(UNSAFE, buffers[c]);
+                } catch(IllegalAccessException | InvocationTargetException e) {
+                    // The buffer is then freed when it is collected, as it would have been without close()
+                }
+            }
+        }
+    }
+
+    private static Method findInvokeCleaner() {
+        try {
+            return Class.forName("sun.misc.Unsafe").getMethod("invokeCleaner", ByteBuffer.class);
+        } catch(ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static Object findUnsafe() {
+        try {
+            final Field field = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return field.get(null);
+        } catch(ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package wallacewatler.sortingvisualizer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * An algorithm that forks its work onto a {@link ForkJoinPool}. Each pool thread acts as a {@link Worker}, which takes
+ * its own steps from the visualizer, keeps its own metrics stripe, and reports its own cursors. All workers share the
+ * step rate of the algorithm, so a parallel algorithm takes as many steps per second as a sequential one, just spread
+ * over several threads.
+ * <p>
+ * Implementations do their work in {@code executeParallel()}, which runs inside the pool, and access arrays through the
+ * overloads of {@code get()}, {@code set()}, {@code swap()}, {@code copy()}, {@code compare()}, and
+ * {@code awaitStep()} that take the worker of the current thread, as returned by {@code worker()}.
+ * <p>
+ * When several workers write the displayed array, each write takes a lock, so every column stays consistent, but a
+ * frame may show another worker's swap half done.
+ */
+public abstract class ParallelAlgorithm extends Algorithm {
+    /** The number of cursors each worker can report. */
+    public static final int CURSORS_PER_WORKER = 3;
+
+    /** The number of threads in the pool. */
+    public final int parallelism;
+    private final List<Worker> workers = new CopyOnWriteArrayList<>();
+    private ThreadLocal<Worker> currentWorker;
+
+    /**
+     * @param name the display name of this algorithm
+     * @param parallelism the number of threads to fork work onto
+     */
+    protected ParallelAlgorithm(String name, int parallelism) {
+        super(name);
+        if(parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    final boolean concurrentWriters() {
+        return true;
+    }
+
+    @Override
+    protected final void execute(int[] arr) {
+        workers.clear();
+        currentWorker = ThreadLocal.withInitial(this::newWorker);
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            final ForkJoinTask<?> task = pool.submit(() -> executeParallel(arr));
+            try {
+                task.get();
+            } catch(InterruptedException e) {
+                // Pool threads are not ours to interrupt, so make their next step fail instead
+                cancelSteps();
+                task.quietlyJoin();
+            } catch(ExecutionException e) {
+                if(e.getCause() instanceof RuntimeException cause)
+                    throw cause;
+                if(e.getCause() instanceof Error cause)
+                    throw cause;
+                throw new IllegalStateException(e.getCause());
+            }
+        } finally {
+            pool.shutdownNow();
+            for(Worker worker : workers)
+                worker.flushTrace();
+        }
+    }
+
+    private Worker newWorker() {
+        final Worker worker = new Worker(this, workers.size());
+        worker.trackWritesLike(this);
+        workers.add(worker);
+        return worker;
+    }
+
+    /**
+     * The procedure that will be visualized, run inside the pool. Work can be forked with the usual
+     * {@link java.util.concurrent.RecursiveAction} and {@link ForkJoinTask} methods. If a step is interrupted, the task
+     * taking it should return; every later step fails the same way, so all tasks wind down.
+     * @param arr the input array
+     */
+    protected abstract void executeParallel(int[] arr);
+
+    /**
+     * @return the worker of the current thread, which must be a thread of the pool
+     */
+    protected final Worker worker() {
+        return currentWorker.get();
+    }
+
+    /**
+     * @return the workers of the current or last execution, in the order they started
+     */
+    public final List<Worker> workers() {
+        return workers;
+    }
+
+    /**
+     * The cursors of all workers.
+     */
+    @Override
+    public int[] pointsOfInterest() {
+        final Worker[] current = workers.toArray(new Worker[0]);
+        final int[] points = new int[current.length * CURSORS_PER_WORKER];
+        for(int w = 0; w < current.length; w++)
+            System.arraycopy(current[w].cursors, 0, points, w * CURSORS_PER_WORKER, CURSORS_PER_WORKER);
+        return points;
+    }
+
+    /**
+     * Set one of the cursors a worker reports as points of interest.
+     * @param worker the worker of the current thread
+     * @param cursor which cursor to set, less than {@code CURSORS_PER_WORKER}
+     * @param index the array index to highlight, or -1 for none
+     */
+    protected final void setCursor(Worker worker, int cursor, int index) {
+        worker.cursors[cursor] = index;
+    }
+
+    /** Hide all cursors of a worker. */
+    protected final void clearCursors(Worker worker) {
+        for(int c = 0; c < CURSORS_PER_WORKER; c++)
+            worker.cursors[c] = -1;
+    }
+
+    /** @see Algorithm#awaitStep() */
+    protected final void awaitStep(Worker worker) throws InterruptedException {
+        worker.awaitStep();
+    }
+
+    /** @see Algorithm#swap(int[], int, int) */
+    protected final void swap(Worker worker, int[] arr, int i, int j) {
+        worker.swap(arr, i, j);
+    }
+
+    /** @see Algorithm#get(int[], int) */
+    protected final int get(Worker worker, int[] arr, int i) {
+        return worker.get(arr, i);
+    }
+
+    /** @see Algorithm#set(int[], int, int) */
+    protected final void set(Worker worker, int[] arr, int i, int value) {
+        worker.set(arr, i, value);
+    }
+
+    /** @see Algorithm#copy(int[], int, int[], int, int) */
+    protected final void copy(Worker worker, int[] src, int srcPos, int[] dest, int destPos, int length) {
+        worker.copy(src, srcPos, dest, destPos, length);
+    }
+
+    /** @see Algorithm#compare(int[], int, int) */
+    protected final int compare(Worker worker, int[] arr, int i, int j) {
+        return worker.compare(arr, i, j);
+    }
+
+    /**
+     * Sort a range on the current thread with a quicksort that recurses into the smaller partition, so that the stack
+     * depth stays logarithmic. Cursors 0 and 1 of the worker follow the partitioning.
+     * @param worker the worker of the current thread
+     * @param arr an array
+     * @param low the first index of the range
+     * @param high the last index of the range, inclusive
+     * @throws InterruptedException if a step is interrupted
+     */
+    protected final void sequentialSort(Worker worker, int[] arr, int low, int high) throws InterruptedException {
+        while(low < high) {
+            final int j = partition(worker, arr, low, high);
+            if(j - low < high - j) {
+                sequentialSort(worker, arr, low, j);
+                low = j + 1;
+            } else {
+                sequentialSort(worker, arr, j + 1, high);
+                high = j;
+            }
+        }
+    }
+
+    /**
+     * Hoare partition around the middle element. Cursors 0 and 1 of the worker follow the two pointers.
+     * @return an index {@code j} such that no element of {@code [low, j]} is greater than any element of
+     *         {@code [j + 1, high]}, with {@code low <= j < high}
+     * @throws InterruptedException if a step is interrupted
+     */
+    protected final int partition(Worker worker, int[] arr, int low, int high) throws InterruptedException {
+        final int pivot = get(worker, arr, low + (high - low) / 2);
+        int i = low - 1;
+        int j = high + 1;
+        while(true) {
+            do {
+                awaitStep(worker);
+                i++;
+                setCursor(worker, 0, i);
+                worker.metrics.numComparisons++;
+            } while(get(worker, arr, i) < pivot);
+
+            do {
+                awaitStep(worker);
+                j--;
+                setCursor(worker, 1, j);
+                worker.metrics.numComparisons++;
+            } while(get(worker, arr, j) > pivot);
+
+            if(i >= j)
+                return j;
+
+            awaitStep(worker);
+            swap(worker, arr, i, j);
+        }
+    }
+
+    /**
+     * The part of a parallel algorithm running on one pool thread. A worker accesses the arrays of its algorithm
+     * through the same convenience methods as an algorithm, counting into its own stripe of the algorithm's metrics and
+     * taking steps from the algorithm's gate, and reports its own cursors.
+     */
+    public static final class Worker extends Instrumented {
+        /** The position of this worker among the workers of its algorithm. */
+        public final int index;
+        private final ParallelAlgorithm owner;
+        private final int[] cursors = new int[CURSORS_PER_WORKER];
+
+        private Worker(ParallelAlgorithm owner, int index) {
+            super(owner.metrics.stripe(), owner.stepGate());
+            this.owner = owner;
+            this.index = index;
+            for(int c = 0; c < CURSORS_PER_WORKER; c++)
+                cursors[c] = -1;
+        }
+
+        @Override
+        boolean concurrentWriters() {
+            return true;
+        }
+
+        @Override
+        Algorithm highlightSource() {
+            return owner;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package wallacewatler.sortingvisualizer;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Top-down merge sort with the two halves of every range sorted in parallel. Ranges smaller than a threshold are sorted
+ * by a single worker, and each merge is done by one worker through an auxiliary array, so the final merges limit how
+ * well this scales.
+ */
+public class ParallelMergeSort extends ParallelAlgorithm {
+    /** Ranges with fewer elements than this are not split between workers. */
+    public final int sequentialThreshold;
+
+    public ParallelMergeSort(int parallelism, int sequentialThreshold) {
+        super("Parallel Merge sort - " + parallelism + " threads", parallelism);
+        this.sequentialThreshold = Math.max(2, sequentialThreshold);
+    }
+
+    @Override
+    protected void executeParallel(int[] arr) {
+        new Sort(arr, new int[arr.length], 0, arr.length).invoke();
+    }
+
+    @SuppressWarnings("serial")
+    private final class Sort extends RecursiveAction {
+        private final int[] arr;
+        private final int[] aux;
+        private final int from;
+        private final int to;
+
+        private Sort(int[] arr, int[] aux, int from, int to) {
+            this.arr = arr;
+            this.aux = aux;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            final Worker worker = worker();
+            try {
+                if(to - from < sequentialThreshold) {
+                    sequentialSort(worker, arr, from, to - 1);
+                } else {
+                    final int mid = from + (to - from) / 2;
+                    invokeAll(new Sort(arr, aux, from, mid), new Sort(arr, aux, mid, to));
+                    merge(worker, arr, aux, from, mid, to);
+                }
+            } catch(InterruptedException e) {
+                return;
+            } finally {
+                clearCursors(worker);
+            }
+        }
+    }
+
+    /**
+     * Merge the sorted ranges {@code [from, mid)} and {@code [mid, to)} of {@code arr}, using the same range of
+     * {@code aux} as scratch space.
+     */
+    private void merge(Worker worker, int[] arr, int[] aux, int from, int mid, int to) throws InterruptedException {
+        copy(worker, arr, from, aux, from, to - from);
+        int i = from;
+        int j = mid;
+        for(int k = from; k < to; k++) {
+            awaitStep(worker);
+            setCursor(worker, 0, i);
+            setCursor(worker, 1, j);
+            setCursor(worker, 2, k);
+            if(i < mid && j < to)
+                worker.metrics.numComparisons++;
+            if(j >= to || (i < mid && get(worker, aux, i) <= get(worker, aux, j)))
+                set(worker, arr, k, get(worker, aux, i++));
+            else
+                set(worker, arr, k, get(worker, aux, j++));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package wallacewatler.sortingvisualizer;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Quicksort with the two partitions of every split sorted in parallel. Partitions smaller than a threshold are sorted
+ * by a single worker. The pivot is chosen as the middle element. Splits are forked at most {@code 2 log2(n)} levels
+ * deep, so inputs that make every split unbalanced, such as organ pipes, cannot nest tasks deep enough to overflow the
+ * stack; deeper partitions are sorted by a single worker too.
+ * @see QuickSort
+ */
+public class ParallelQuickSort extends ParallelAlgorithm {
+    /** Partitions with fewer elements than this are not split between workers. */
+    public final int sequentialThreshold;
+
+    public ParallelQuickSort(int parallelism, int sequentialThreshold) {
+        super("Parallel Quicksort - " + parallelism + " threads", parallelism);
+        this.sequentialThreshold = Math.max(2, sequentialThreshold);
+    }
+
+    @Override
+    protected void executeParallel(int[] arr) {
+        new Split(arr, 0, arr.length - 1, 2 * GuardedQuickSort.log2(Math.max(1, arr.length))).invoke();
+    }
+
+    @SuppressWarnings("serial")
+    private final class Split extends RecursiveAction {
+        private final int[] arr;
+        private final int low;
+        private final int high;
+        /** The number of levels this split may still fork. */
+        private final int depthLimit;
+
+        private Split(int[] arr, int low, int high, int depthLimit) {
+            this.arr = arr;
+            this.low = low;
+            this.high = high;
+            this.depthLimit = depthLimit;
+        }
+
+        @Override
+        protected void compute() {
+            final Worker worker = worker();
+            try {
+                if(high - low + 1 < sequentialThreshold || depthLimit == 0) {
+                    sequentialSort(worker, arr, low, high);
+                } else {
+                    final int j = partition(worker, arr, low, high);
+                    invokeAll(new Split(arr, low, j, depthLimit - 1), new Split(arr, j + 1, high, depthLimit - 1));
+                }
+            } catch(InterruptedException e) {
+                return;
+            } finally {
+                clearCursors(worker);
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package wallacewatler.sortingvisualizer;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sample sort: splitters chosen from a random sample divide the values into buckets, every block of the array is
+ * scattered into the buckets in parallel, and then every bucket is sorted in parallel. Unlike the recursive parallel
+ * sorts, all workers are busy from the first step.
+ */
+public class ParallelSampleSort extends ParallelAlgorithm {
+    /** Sample elements per bucket. More make bucket sizes more even. */
+    private static final int OVERSAMPLING = 16;
+
+    /** The number of buckets, and of blocks the array is scattered in. */
+    public final int numBuckets;
+    /** Arrays with fewer elements than this are sorted by a single worker. */
+    public final int sequentialThreshold;
+
+    public ParallelSampleSort(int parallelism, int bucketsPerThread, int sequentialThreshold) {
+        super("Parallel Sample sort - " + parallelism + " threads", parallelism);
+        this.numBuckets = parallelism * Math.max(1, bucketsPerThread);
+        this.sequentialThreshold = Math.max(2, sequentialThreshold);
+    }
+
+    @Override
+    protected void executeParallel(int[] arr) {
+        final int n = arr.length;
+        final Worker worker = worker();
+        if(n < Math.max(sequentialThreshold, numBuckets * OVERSAMPLING)) {
+            try { sequentialSort(worker, arr, 0, n - 1); } catch(InterruptedException e) { return; }
+            clearCursors(worker);
+            return;
+        }
+
+        final int[] splitters;
+        try {
+            splitters = chooseSplitters(worker, arr);
+        } catch(InterruptedException e) {
+            return;
+        }
+        clearCursors(worker);
+
+        final int blockSize = (n + numBuckets - 1) / numBuckets;
+        final int[][] counts = new int[numBuckets][];
+        final ForkJoinTask<?>[] countTasks = new ForkJoinTask<?>[numBuckets];
+        for(int b = 0; b < numBuckets; b++) {
+            final int block = b;
+            countTasks[b] = ForkJoinTask.adapt(() -> counts[block] = countBlock(arr, splitters, block * blockSize,
+                    Math.min(n, (block + 1) * blockSize)));
+        }
+        ForkJoinTask.invokeAll(countTasks);
+        for(int[] count : counts) {
+            if(count == null)
+                return;
+        }
+
+        // The buckets are laid out in order, and within a bucket the blocks are laid out in order
+        final int[] bucketStarts = new int[numBuckets + 1];
+        final int[][] offsets = new int[numBuckets][numBuckets];
+        int offset = 0;
+        for(int bucket = 0; bucket < numBuckets; bucket++) {
+            bucketStarts[bucket] = offset;
+            for(int block = 0; block < numBuckets; block++) {
+                offsets[block][bucket] = offset;
+                offset += counts[block][bucket];
+            }
+        }
+        bucketStarts[numBuckets] = n;
+
+        final int[] aux = new int[n];
+        final RecursiveAction[] scatterTasks = new RecursiveAction[numBuckets];
+        for(int b = 0; b < numBuckets; b++)
+            scatterTasks[b] = new Scatter(arr, aux, splitters, offsets[b], b * blockSize, Math.min(n, (b + 1) * blockSize));
+        ForkJoinTask.invokeAll(scatterTasks);
+
+        final RecursiveAction[] bucketTasks = new RecursiveAction[numBuckets];
+        for(int b = 0; b < numBuckets; b++)
+            bucketTasks[b] = new SortBucket(arr, aux, bucketStarts[b], bucketStarts[b + 1]);
+        ForkJoinTask.invokeAll(bucketTasks);
+    }
+
+    private int[] chooseSplitters(Worker worker, int[] arr) throws InterruptedException {
+        final Random random = new Random(arr.length);
+        final int[] sample = new int[numBuckets * OVERSAMPLING];
+        for(int s = 0; s < sample.length; s++) {
+            awaitStep(worker);
+            final int i = random.nextInt(arr.length);
+            setCursor(worker, 0, i);
+            sample[s] = get(worker, arr, i);
+        }
+        Arrays.sort(sample);
+
+        final int[] splitters = new int[numBuckets - 1];
+        for(int b = 0; b < splitters.length; b++)
+            splitters[b] = sample[(b + 1) * OVERSAMPLING];
+        return splitters;
+    }
+
+    /**
+     * @return the number of elements of the block in each bucket, or null if interrupted
+     */
+    private int[] countBlock(int[] arr, int[] splitters, int from, int to) {
+        final Worker worker = worker();
+        final int[] count = new int[numBuckets];
+        try {
+            for(int i = from; i < to; i++) {
+                awaitStep(worker);
+                setCursor(worker, 0, i);
+                count[bucketOf(worker, get(worker, arr, i), splitters)]++;
+            }
+        } catch(InterruptedException e) {
+            return null;
+        } finally {
+            clearCursors(worker);
+        }
+        return count;
+    }
+
+    /**
+     * Move every element of a block to the next free slot of its bucket in {@code aux}.
+     * @param offsets the next free index of each bucket for this block, advanced as elements are moved
+     */
+    private void scatterBlock(int[] arr, int[] aux, int[] splitters, int[] offsets, int from, int to) {
+        final Worker worker = worker();
+        try {
+            for(int i = from; i < to; i++) {
+                awaitStep(worker);
+                setCursor(worker, 0, i);
+                final int value = get(worker, arr, i);
+                set(worker, aux, offsets[bucketOf(worker, value, splitters)]++, value);
+            }
+        } catch(InterruptedException e) {
+            return;
+        } finally {
+            clearCursors(worker);
+        }
+    }
+
+    /**
+     * Copy a bucket back from {@code aux} into its final place in {@code arr} and sort it there.
+     */
+    private void sortBucket(int[] arr, int[] aux, int from, int to) {
+        final Worker worker = worker();
+        try {
+            for(int i = from; i < to; i++) {
+                awaitStep(worker);
+                setCursor(worker, 2, i);
+                set(worker, arr, i, get(worker, aux, i));
+            }
+            sequentialSort(worker, arr, from, to - 1);
+        } catch(InterruptedException e) {
+            return;
+        } finally {
+            clearCursors(worker);
+        }
+    }
+
+    /**
+     * @return the index of the first splitter not less than {@code value}, or the number of splitters if there is none
+     */
+    private static int bucketOf(Worker worker, int value, int[] splitters) {
+        int low = 0;
+        int high = splitters.length;
+        while(low < high) {
+            final int mid = (low + high) >>> 1;
+            worker.metrics.numComparisons++;
+            if(splitters[mid] < value)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    @SuppressWarnings("serial")
+    private final class Scatter extends RecursiveAction {
+        private final int[] arr;
+        private final int[] aux;
+        private final int[] splitters;
+        private final int[] offsets;
+        private final int from;
+        private final int to;
+
+        private Scatter(int[] arr, int[] aux, int[] splitters, int[] offsets, int from, int to) {
+            this.arr = arr;
+            this.aux = aux;
+            this.splitters = splitters;
+            this.offsets = offsets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            scatterBlock(arr, aux, splitters, offsets, from, to);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class SortBucket extends RecursiveAction {
+        private final int[] arr;
+        private final int[] aux;
+        private final int from;
+        private final int to;
+
+        private SortBucket(int[] arr, int[] aux, int from, int to) {
+            this.arr = arr;
+            this.aux = aux;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            sortBucket(arr, aux, from, to);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package wallacewatler.sortingvisualizer;
+
+/**
+ * The partitions still to be sorted by a quicksort, held in a fixed {@code int[]} so that pushing and popping allocate
+ * nothing. Each partition is an inclusive range of indices, with the bounds of its values for algorithms that pick
+ * pivots from them.
+ * <p>
+ * The two partitions of a range are pushed with the larger one first, so the smaller one is always sorted next. Every
+ * partition on the stack is then at most half as long as the one below it, and since partitions of fewer than two
+ * elements are never pushed, the stack is never deeper than the number of bits in an index.
+ */
+final class PartitionStack {
+    private static final int FIELDS = 4;
+    private static final int CAPACITY = Integer.SIZE + 2;
+
+    private final int[] entries = new int[CAPACITY * FIELDS];
+    private int size;
+    /** The partition last popped. */
+    int low;
+    int high;
+    int min;
+    int max;
+
+    /**
+     * Push a range with no value bounds.
+     */
+    void push(int low, int high) {
+        push(low, high, 0, 0);
+    }
+
+    /**
+     * Push a range whose values are between {@code min} and {@code max}, unless it has fewer than two elements.
+     */
+    void push(int low, int high, int min, int max) {
+        if(high - low < 1)
+            return;
+        final int k = size++ * FIELDS;
+        entries[k] = low;
+        entries[k + 1] = high;
+        entries[k + 2] = min;
+        entries[k + 3] = max;
+    }
+
+    /**
+     * Push the partitions {@code [low, split]} and {@code [split + 1, high]} of a range, so that the smaller is popped
+     * first.
+     */
+    void pushPartitions(int low, int split, int high) {
+        if(split - low < high - split - 1) {
+            push(split + 1, high);
+            push(low, split);
+        } else {
+            push(low, split);
+            push(split + 1, high);
+        }
+    }
+
+    /**
+     * Push the partitions {@code [low, split]} and {@code [split + 1, high]} of a range whose values are between
+     * {@code min} and {@code max}, split so that the lower partition holds the values up to {@code pivot} and the upper
+     * one the values above it, so that the smaller is popped first. A partition whose bounds leave it a single value is
+     * already sorted and is not pushed, so the bounds of every partition on the stack are narrower than its parent's.
+     */
+    void pushPartitions(int low, int split, int high, int min, int pivot, int max) {
+        if(split - low < high - split - 1) {
+            pushBounded(split + 1, high, pivot + 1, max);
+            pushBounded(low, split, min, pivot);
+        } else {
+            pushBounded(low, split, min, pivot);
+            pushBounded(split + 1, high, pivot + 1, max);
+        }
+    }
+
+    /**
+     * Push a range whose values are between {@code min} and {@code max}, unless it has fewer than two elements or the
+     * bounds leave it a single value.
+     */
+    private void pushBounded(int low, int high, int min, int max) {
+        if(min < max)
+            push(low, high, min, max);
+    }
+
+    /**
+     * Pop the next partition into {@code low}, {@code high}, {@code min} and {@code max}.
+     * @return false if there are no partitions left
+     */
+    boolean pop() {
+        if(size == 0)
+            return false;
+        final int k = --size * FIELDS;
+        low = entries[k];
+        high = entries[k + 1];
+        min = entries[k + 2];
+        max = entries[k + 3];
+        return true;
+    }
+}
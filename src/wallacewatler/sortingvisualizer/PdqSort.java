@@ -0,0 +1,248 @@
+package wallacewatler.sortingvisualizer;
+
+/**
+ * Pattern-defeating quicksort, after Orson Peters' pdqsort. It is an introsort that also adapts to patterns in the input:
+ * <ul>
+ *     <li>The pivot is the median of three elements, or the pseudomedian of nine for partitions with more than
+ *     {@code minElementsForNinther} elements.</li>
+ *     <li>A partition that needed no swaps is assumed to be nearly sorted, and is finished with an insertion sort that
+ *     gives up after a few moves, so sorted and nearly sorted inputs take linear time.</li>
+ *     <li>When the pivot equals the element just before the partition, every element equal to the pivot is moved left
+ *     and never looked at again, so inputs with many duplicates take linear time.</li>
+ *     <li>After a badly unbalanced partition, a few elements are swapped around to break up the pattern that caused
+ *     it. After {@code log2(n)} bad partitions, the range is sorted with heapsort.</li>
+ * </ul>
+ * Small partitions are finished with insertion sort.
+ */
+public class PdqSort extends GuardedQuickSort {
+    /** Partitions at least this long are shuffled after a bad partition. */
+    private static final int MIN_ELEMENTS_FOR_SHUFFLE = 24;
+    /** The most elements the insertion sort of a nearly sorted partition may move before giving up. */
+    private static final int PARTIAL_INSERTION_LIMIT = 8;
+
+    public final int minElementsForNinther;
+    /** Whether the last call to {@code partitionRight} found the partition already partitioned. */
+    private boolean alreadyPartitioned;
+
+    public PdqSort(int maxElementsForInsertion, int minElementsForNinther) {
+        super("Pattern-defeating Quicksort", maxElementsForInsertion);
+        this.minElementsForNinther = minElementsForNinther;
+    }
+
+    @Override
+    protected void execute(SortableArray arr) {
+        i = j = -1;
+        if(arr.length() < 2)
+            return;
+
+        try {
+            sort(arr, 0, arr.length(), log2(arr.length()), true);
+        } catch(InterruptedException e) {
+            return;
+        }
+    }
+
+    /**
+     * Sort the range {@code [begin, end)}.
+     * @param badAllowed the number of bad partitions allowed before switching to heapsort
+     * @param leftmost true if the range starts the array, so that there is no element before it
+     */
+    private void sort(SortableArray arr, int begin, int end, int badAllowed, boolean leftmost)
+            throws InterruptedException {
+        while(true) {
+            final int size = end - begin;
+            if(size <= Math.max(maxElementsForInsertion, 2)) {
+                insertionSort(arr, begin, end - 1);
+                return;
+            }
+
+            // Move the pivot to begin, leaving an element no less than it near the end
+            final int half = size / 2;
+            if(size > Math.max(minElementsForNinther, 8)) {
+                sort3(arr, begin, begin + half, end - 1);
+                sort3(arr, begin + 1, begin + half - 1, end - 2);
+                sort3(arr, begin + 2, begin + half + 1, end - 3);
+                sort3(arr, begin + half - 1, begin + half, begin + half + 1);
+                swap(arr, begin, begin + half);
+            } else {
+                sort3(arr, begin + half, begin, end - 1);
+            }
+
+            // The element before the range is no greater than any in it, so if it equals the pivot, so does everything
+            // that is not greater than the pivot
+            if(!leftmost && compare(arr, begin - 1, begin) >= 0) {
+                begin = partitionLeft(arr, begin, end) + 1;
+                continue;
+            }
+
+            final int pivotPos = partitionRight(arr, begin, end);
+            final int leftSize = pivotPos - begin;
+            final int rightSize = end - pivotPos - 1;
+            if(leftSize < size / 8 || rightSize < size / 8) {
+                if(--badAllowed == 0) {
+                    heapSort(arr, begin, end - 1);
+                    return;
+                }
+                if(leftSize >= MIN_ELEMENTS_FOR_SHUFFLE)
+                    shuffle(arr, begin, pivotPos, leftSize);
+                if(rightSize >= MIN_ELEMENTS_FOR_SHUFFLE)
+                    shuffle(arr, pivotPos + 1, end, rightSize);
+            } else if(alreadyPartitioned && partialInsertionSort(arr, begin, pivotPos)
+                    && partialInsertionSort(arr, pivotPos + 1, end)) {
+                return;
+            }
+
+            // Recurse into the smaller partition, so that the stack stays logarithmic
+            if(leftSize < rightSize) {
+                sort(arr, begin, pivotPos, badAllowed, leftmost);
+                begin = pivotPos + 1;
+                leftmost = false;
+            } else {
+                sort(arr, pivotPos + 1, end, badAllowed, false);
+                end = pivotPos;
+            }
+        }
+    }
+
+    /**
+     * Swap elements near both ends of {@code [begin, end)} with elements a quarter of the way in from each end.
+     */
+    private void shuffle(SortableArray arr, int begin, int end, int size) throws InterruptedException {
+        final int quarter = size / 4;
+        awaitStep();
+        swap(arr, begin, begin + quarter);
+        swap(arr, end - 1, end - quarter);
+        if(size > minElementsForNinther) {
+            swap(arr, begin + 1, begin + quarter + 1);
+            swap(arr, begin + 2, begin + quarter + 2);
+            swap(arr, end - 2, end - quarter - 1);
+            swap(arr, end - 3, end - quarter - 2);
+        }
+    }
+
+    /**
+     * Partition {@code [begin, end)} around the element at {@code begin}, with elements equal to it going right.
+     * @return the final index of the pivot
+     */
+    private int partitionRight(SortableArray arr, int begin, int end) throws InterruptedException {
+        final int pivot = get(arr, begin);
+        i = begin;
+        j = end;
+
+        // An element no less than the pivot was left near the end, so this scan stops
+        do {
+            awaitStep();
+            i++;
+            metrics.numComparisons++;
+        } while(get(arr, i) < pivot);
+
+        // If no element before i is less than the pivot, this scan has to be bounded
+        if(i - 1 == begin) {
+            while(i < j) {
+                awaitStep();
+                j--;
+                metrics.numComparisons++;
+                if(get(arr, j) < pivot)
+                    break;
+            }
+        } else {
+            do {
+                awaitStep();
+                j--;
+                metrics.numComparisons++;
+            } while(get(arr, j) >= pivot);
+        }
+
+        alreadyPartitioned = i >= j;
+        while(i < j) {
+            awaitStep();
+            swap(arr, i, j);
+            do {
+                awaitStep();
+                i++;
+                metrics.numComparisons++;
+            } while(get(arr, i) < pivot);
+            do {
+                awaitStep();
+                j--;
+                metrics.numComparisons++;
+            } while(get(arr, j) >= pivot);
+        }
+
+        final int pivotPos = i - 1;
+        awaitStep();
+        swap(arr, begin, pivotPos);
+        return pivotPos;
+    }
+
+    /**
+     * Partition {@code [begin, end)} around the element at {@code begin}, with elements equal to it going left.
+     * @return the final index of the pivot
+     */
+    private int partitionLeft(SortableArray arr, int begin, int end) throws InterruptedException {
+        final int pivot = get(arr, begin);
+        i = begin;
+        j = end;
+
+        // The pivot itself stops this scan
+        do {
+            awaitStep();
+            j--;
+            metrics.numComparisons++;
+        } while(pivot < get(arr, j));
+
+        if(j + 1 == end) {
+            while(i < j) {
+                awaitStep();
+                i++;
+                metrics.numComparisons++;
+                if(pivot < get(arr, i))
+                    break;
+            }
+        } else {
+            do {
+                awaitStep();
+                i++;
+                metrics.numComparisons++;
+            } while(pivot >= get(arr, i));
+        }
+
+        while(i < j) {
+            awaitStep();
+            swap(arr, i, j);
+            do {
+                awaitStep();
+                j--;
+                metrics.numComparisons++;
+            } while(pivot < get(arr, j));
+            do {
+                awaitStep();
+                i++;
+                metrics.numComparisons++;
+            } while(pivot >= get(arr, i));
+        }
+
+        awaitStep();
+        swap(arr, begin, j);
+        return j;
+    }
+
+    /**
+     * Insertion sort {@code [begin, end)}, giving up once more than a few elements have been moved.
+     * @return true if the range was sorted
+     */
+    private boolean partialInsertionSort(SortableArray arr, int begin, int end) throws InterruptedException {
+        int moved = 0;
+        for(i = begin + 1; i < end; i++) {
+            if(moved > PARTIAL_INSERTION_LIMIT)
+                return false;
+            awaitStep();
+            for(j = i; j > begin && compare(arr, j, j - 1) < 0; j--) {
+                awaitStep();
+                swap(arr, j, j - 1);
+            }
+            moved += i - j;
+        }
+        return true;
+    }
+}
@@ -1,14 +1,11 @@
 package wallacewatler.sortingvisualizer;
 
-import java.util.Deque;
-import java.util.LinkedList;
-
 /**
  * A variant of quicksort that switches to insertion sort when a partition has few enough elements.
  * @see QuickSort
  * @see InsertionSort
  */
-public class QuickInsertSort extends Algorithm {
+public class QuickInsertSort extends SortableArrayAlgorithm {
     public final int maxElementsForInsertion;
     private int i;
     private int j;
@@ -19,16 +16,13 @@ public class QuickInsertSort extends Algorithm {
     }
 
     @Override
-    protected void execute(int[] arr) {
-        final Deque<Ply> plies = new LinkedList<>();
-        plies.push(new Ply(0, arr.length - 1));
+    protected void execute(SortableArray arr) {
+        final PartitionStack partitions = new PartitionStack();
+        partitions.push(0, arr.length() - 1);
 
-        while(!plies.isEmpty()) {
-            final Ply ply = plies.pop();
-            final int low = ply.low;
-            final int high = ply.high;
-            if(low < 0 || high < 0 || low >= high)
-                continue;
+        while(partitions.pop()) {
+            final int low = partitions.low;
+            final int high = partitions.high;
 
             // If few enough elements, use insertion sort
             if(high - low <= maxElementsForInsertion) {
@@ -65,15 +59,12 @@ public class QuickInsertSort extends Algorithm {
                 try { awaitStep(); } catch(InterruptedException e) { return; }
                 swap(arr, i, j);
             }
-            plies.push(new Ply(j + 1, high));
-            plies.push(new Ply(low, j));
+            partitions.pushPartitions(low, j, high);
         }
     }
 
     @Override
-    public boolean isPointOfInterest(int index) {
-        return index == i || index == j;
+    public int[] pointsOfInterest() {
+        return new int[] {i, j};
     }
-
-    private record Ply(int low, int high) {}
 }
@@ -1,12 +1,9 @@
 package wallacewatler.sortingvisualizer;
 
-import java.util.Deque;
-import java.util.LinkedList;
-
 /**
  * Sorts an array by recursively partitioning it in two. The pivot is chosen as the middle element.
  */
-public class QuickSort extends Algorithm {
+public class QuickSort extends SortableArrayAlgorithm {
     private int i;
     private int j;
 
@@ -15,16 +12,13 @@ public class QuickSort extends Algorithm {
     }
 
     @Override
-    protected void execute(int[] arr) {
-        final Deque<Ply> plies = new LinkedList<>();
-        plies.push(new Ply(0, arr.length - 1));
+    protected void execute(SortableArray arr) {
+        final PartitionStack partitions = new PartitionStack();
+        partitions.push(0, arr.length() - 1);
 
-        while(!plies.isEmpty()) {
-            final Ply ply = plies.pop();
-            final int low = ply.low;
-            final int high = ply.high;
-            if(low < 0 || high < 0 || low >= high)
-                continue;
+        while(partitions.pop()) {
+            final int low = partitions.low;
+            final int high = partitions.high;
 
             final int pivot = get(arr, low + (high - low) / 2);
             i = low - 1;
@@ -48,15 +42,12 @@ public class QuickSort extends Algorithm {
                 try { awaitStep(); } catch(InterruptedException e) { return; }
                 swap(arr, i, j);
             }
-            plies.push(new Ply(j + 1, high));
-            plies.push(new Ply(low, j));
+            partitions.pushPartitions(low, j, high);
         }
     }
 
     @Override
-    public boolean isPointOfInterest(int index) {
-        return index == i || index == j;
+    public int[] pointsOfInterest() {
+        return new int[] {i, j};
     }
-
-    private record Ply(int low, int high) {}
 }
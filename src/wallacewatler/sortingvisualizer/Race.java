@@ -0,0 +1,144 @@
+package wallacewatler.sortingvisualizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs several algorithms at once, each on its own copy of the same input, so that they can be compared head to head.
+ * Every racer has its own column model and raster, sized for its pane of the window, and all racers are stepped by one
+ * pacer at the same rate.
+ * <p>
+ * Racers run on virtual threads when the runtime provides them, since a race usually has more racers than there are
+ * cores and every racer spends most of its time waiting for steps. Otherwise they run on platform threads.
+ */
+final class Race {
+    /** The space between panes, in pixels. */
+    static final int PANE_GAP = 2;
+
+    final int gridColumns;
+    final int gridRows;
+    final int paneWidth;
+    final int paneHeight;
+    private final List<Racer> racers = new ArrayList<>();
+    private final AtomicInteger finishers = new AtomicInteger();
+
+    /**
+     * @param algorithms the algorithms to race, none of which may be executing
+     * @param input the array every algorithm starts from; it is copied and not modified
+     * @param width the width of the area to lay the panes out in
+     * @param height the height of the area to lay the panes out in
+     */
+    Race(List<Algorithm> algorithms, int[] input, int width, int height) {
+        gridColumns = (int) Math.ceil(Math.sqrt(algorithms.size()));
+        gridRows = (algorithms.size() + gridColumns - 1) / gridColumns;
+        paneWidth = Math.max(1, width / gridColumns - PANE_GAP);
+        paneHeight = Math.max(1, height / gridRows - PANE_GAP);
+
+        final int elementsPerColumn = Math.max(1, (input.length + paneWidth - 1) / paneWidth);
+        for(Algorithm algorithm : algorithms) {
+            final int[] arr = input.clone();
+            final ColumnModel columns = new ColumnModel(arr, elementsPerColumn);
+            final int pixelsPerColumn = Math.max(1, paneWidth / columns.numColumns);
+            racers.add(new Racer(algorithm, arr, columns, pixelsPerColumn, new BarRaster(paneWidth, paneHeight)));
+        }
+    }
+
+    /**
+     * Start every racer and hand them to the pacer.
+     * @param pacer the pacer to step the racers with
+     */
+    void start(StepPacer pacer) {
+        final List<Algorithm> algorithms = new ArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+        for(Racer racer : racers) {
+            racer.algorithm.reset();
+            racer.algorithm.trackWrites(racer.arr, racer.columns);
+            racer.thread = newThread(() -> {
+                try {
+                    racer.algorithm.run();
+                } finally {
+                    racer.place = finishers.incrementAndGet();
+                }
+            }, "race-" + racer.algorithm.name);
+            algorithms.add(racer.algorithm);
+            threads.add(racer.thread);
+        }
+        for(Thread thread : threads)
+            thread.start();
+        pacer.setTargets(algorithms, threads);
+    }
+
+    /** Interrupt every racer and wait for them all to stop. */
+    void stop() {
+        for(Racer racer : racers)
+            racer.thread.interrupt();
+        for(Racer racer : racers) {
+            try {
+                racer.thread.join();
+            } catch(InterruptedException ex) {
+                throw new RuntimeException(ex);
+            }
+            racer.algorithm.reset();
+            racer.algorithm.trackWrites(null, null);
+        }
+    }
+
+    /** Interrupt every racer without waiting for them. */
+    void interrupt() {
+        for(Racer racer : racers)
+            racer.thread.interrupt();
+    }
+
+    /** Wait for every racer to stop. */
+    void join() throws InterruptedException {
+        for(Racer racer : racers)
+            racer.thread.join();
+    }
+
+    List<Racer> racers() {
+        return racers;
+    }
+
+    private static Thread newThread(Runnable task, String name) {
+        // Looked up reflectively so that this also runs where virtual threads are missing or still a preview feature
+        try {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builderClass.getMethod("name", String.class).invoke(builder, name);
+            return (Thread) builderClass.getMethod("unstarted", Runnable.class).invoke(builder, task);
+        } catch(ReflectiveOperationException | RuntimeException e) {
+            return new Thread(task, name);
+        }
+    }
+
+    /**
+     * One algorithm taking part in a race.
+     */
+    static final class Racer {
+        final Algorithm algorithm;
+        final int[] arr;
+        final ColumnModel columns;
+        final int pixelsPerColumn;
+        final BarRaster raster;
+        private Thread thread;
+        /** The order in which this racer finished, starting at 1, or 0 while it is running. */
+        private volatile int place;
+
+        private Racer(Algorithm algorithm, int[] arr, ColumnModel columns, int pixelsPerColumn, BarRaster raster) {
+            this.algorithm = algorithm;
+            this.arr = arr;
+            this.columns = columns;
+            this.pixelsPerColumn = pixelsPerColumn;
+            this.raster = raster;
+        }
+
+        boolean isRunning() {
+            return thread.isAlive();
+        }
+
+        int place() {
+            return place;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package wallacewatler.sortingvisualizer;
+
+/**
+ * The shared parts of the radix sorts, which order elements by their digits instead of comparing them. A digit is a
+ * group of {@code digitBits} bits of an element whose sign bit was flipped, so that comparing digits as unsigned numbers
+ * puts negative elements first. Digit counts are kept in {@code int[]} histograms accessed through the convenience
+ * methods, so counting shows up in the metrics as auxiliary array traffic.
+ */
+abstract class RadixAlgorithm extends SortableArrayAlgorithm {
+    /** Ranges this short are finished with insertion sort by the most-significant-digit-first sorts. */
+    static final int INSERTION_THRESHOLD = 32;
+
+    /** The number of bits in a digit. */
+    public final int digitBits;
+    /** The number of values a digit can take. */
+    final int radix;
+    int i = -1;
+    int j = -1;
+
+    /**
+     * @param name the display name of this algorithm, to which the digit width is appended
+     * @param digitBits the number of bits in a digit, from 1 to 16
+     */
+    RadixAlgorithm(String name, int digitBits) {
+        super(name + " - " + digitBits + "-bit digits");
+        if(digitBits < 1 || digitBits > 16)
+            throw new IllegalArgumentException("digitBits must be from 1 to 16");
+        this.digitBits = digitBits;
+        radix = 1 << digitBits;
+    }
+
+    /**
+     * @param value an element
+     * @param shift the position of the lowest bit of the digit
+     * @return the digit of {@code value} at {@code shift}
+     */
+    final int digit(int value, int shift) {
+        return ((value ^ Integer.MIN_VALUE) >>> shift) & (radix - 1);
+    }
+
+    /**
+     * @return the position of the lowest bit of the most significant digit
+     */
+    final int topShift() {
+        return 31 / digitBits * digitBits;
+    }
+
+    /**
+     * Count how many elements of a range have each value of a digit.
+     * @return the count of each value of the digit
+     */
+    final int[] histogram(SortableArray arr, int from, int to, int shift) throws InterruptedException {
+        final int[] counts = new int[radix];
+        for(i = from; i < to; i++) {
+            awaitStep();
+            final int d = digit(get(arr, i), shift);
+            set(counts, d, get(counts, d) + 1);
+        }
+        return counts;
+    }
+
+    /**
+     * @return the first index of the range {@code [from, to)} in which every bucket of a histogram starts, followed by
+     *         {@code to}
+     */
+    final int[] bucketStarts(int[] counts, int from) throws InterruptedException {
+        final int[] starts = new int[radix + 1];
+        set(starts, 0, from);
+        for(int b = 0; b < radix; b++) {
+            awaitStep();
+            set(starts, b + 1, get(starts, b) + get(counts, b));
+        }
+        return starts;
+    }
+
+    final void insertionSort(SortableArray arr, int from, int to) throws InterruptedException {
+        for(i = from + 1; i < to; i++) {
+            awaitStep();
+            for(j = i; j > from && compare(arr, j, j - 1) < 0; j--) {
+                awaitStep();
+                swap(arr, j, j - 1);
+            }
+        }
+    }
+
+    @Override
+    public int[] pointsOfInterest() {
+        return new int[] {i, j};
+    }
+}
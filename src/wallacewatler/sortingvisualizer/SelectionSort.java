@@ -3,7 +3,7 @@ package wallacewatler.sortingvisualizer;
 /**
  * Sorts an array by repeatedly selecting the next lowest value.
  */
-public class SelectionSort extends Algorithm {
+public class SelectionSort extends SortableArrayAlgorithm {
     private int i;
     private int j;
     private int jMin;
@@ -13,11 +13,11 @@ public class SelectionSort extends Algorithm {
     }
 
     @Override
-    protected void execute(int[] arr) {
-        for(i = 0; i < arr.length - 1; i++) {
+    protected void execute(SortableArray arr) {
+        for(i = 0; i < arr.length() - 1; i++) {
             try { awaitStep(); } catch(InterruptedException e) { return; }
             jMin = i;
-            for(j = i + 1; j < arr.length; j++) {
+            for(j = i + 1; j < arr.length(); j++) {
                 try { awaitStep(); } catch(InterruptedException e) { return; }
                 if(compare(arr, j, jMin) < 0)
                     jMin = j;
@@ -28,7 +28,7 @@ public class SelectionSort extends Algorithm {
     }
 
     @Override
-    public boolean isPointOfInterest(int index) {
-        return index == i || index == j || index == jMin;
+    public int[] pointsOfInterest() {
+        return new int[] {i, j, jMin};
     }
 }
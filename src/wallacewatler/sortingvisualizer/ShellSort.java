@@ -4,7 +4,7 @@ package wallacewatler.sortingvisualizer;
  * An improved version of insertion sort that starts with a large gap for element insertion and gradually reduces it.
  * @see InsertionSort
  */
-public class ShellSort extends Algorithm {
+public class ShellSort extends SortableArrayAlgorithm {
     public final double shrink;
     private int i;
     private int j;
@@ -15,14 +15,14 @@ public class ShellSort extends Algorithm {
     }
 
     @Override
-    protected void execute(int[] arr) {
-        int gap = arr.length;
+    protected void execute(SortableArray arr) {
+        int gap = arr.length();
         do {
             gap /= shrink;
             if(gap <= 1)
                 gap = 1;
 
-            for(i = gap; i < arr.length; i++) {
+            for(i = gap; i < arr.length(); i++) {
                 try { awaitStep(); } catch(InterruptedException e) { return; }
                 final int temp = get(arr, i);
                 metrics.numComparisons++;
@@ -37,7 +37,7 @@ public class ShellSort extends Algorithm {
     }
 
     @Override
-    public boolean isPointOfInterest(int index) {
-        return index == i || index == j;
+    public int[] pointsOfInterest() {
+        return new int[] {i, j};
     }
 }
@@ -0,0 +1,53 @@
+package wallacewatler.sortingvisualizer;
+
+/**
+ * An array of {@code int}s that a {@link SortableArrayAlgorithm} can sort, wherever its elements are stored. Arrays on
+ * the heap are wrapped with {@code of()}, and arrays too large for the heap are held by an {@link OffHeapArray}.
+ */
+public interface SortableArray {
+    /**
+     * @return the number of elements
+     */
+    int length();
+
+    /**
+     * @param i an index
+     * @return the element at index {@code i}
+     */
+    int get(int i);
+
+    /**
+     * @param i an index
+     * @param value the element to put at index {@code i}
+     */
+    void set(int i, int value);
+
+    /**
+     * @param arr an array on the heap
+     * @return a view of {@code arr}, through which algorithms access it exactly as they would access {@code arr}
+     */
+    static SortableArray of(int[] arr) {
+        return new HeapArray(arr);
+    }
+
+    /**
+     * A view of an array on the heap. Algorithms recognize these and access the array directly, so it is instrumented,
+     * drawn and traced like any other array.
+     */
+    record HeapArray(int[] array) implements SortableArray {
+        @Override
+        public int length() {
+            return array.length;
+        }
+
+        @Override
+        public int get(int i) {
+            return array[i];
+        }
+
+        @Override
+        public void set(int i, int value) {
+            array[i] = value;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package wallacewatler.sortingvisualizer;
+
+/**
+ * An algorithm that can sort any {@link SortableArray}, including an {@link OffHeapArray} too large for the heap.
+ * <p>
+ * Implementations go in {@code execute(SortableArray)} and access the array through the {@code SortableArray}
+ * overloads of the convenience methods. On the heap, these behave exactly like the {@code int[]} overloads. Off the
+ * heap, accesses are counted into the metrics the same way, and writes are drawn when the array is displayed, but
+ * operations are not traced.
+ */
+public abstract class SortableArrayAlgorithm extends Algorithm {
+    /**
+     * Define a new algorithm.
+     * @param name the display name of this algorithm
+     */
+    protected SortableArrayAlgorithm(String name) {
+        super(name);
+    }
+
+    /**
+     * Sort an array at full speed, without step gating. Must not be called while this algorithm is executing
+     * elsewhere. The metrics of the run are available afterwards.
+     * @param arr the array to sort
+     * @param raw true to skip the instrumentation, so that nothing is counted
+     */
+    public final void sort(SortableArray arr, boolean raw) {
+        reset();
+        setUnthrottled(true);
+        setRaw(raw);
+        try {
+            run(arr);
+        } finally {
+            setRaw(false);
+            setUnthrottled(false);
+        }
+    }
+
+    /**
+     * Allocate an auxiliary array to go with an array being sorted, so that both are on the heap or both are off it.
+     * @param arr the array being sorted
+     * @param length the length of the auxiliary array
+     * @return an array of zeros, on the heap if {@code arr} is, and in native memory otherwise
+     */
+    protected static SortableArray allocateLike(SortableArray arr, int length) {
+        if(arr instanceof SortableArray.HeapArray)
+            return SortableArray.of(new int[length]);
+        return OffHeapArray.allocate(length);
+    }
+
+    @Override
+    protected final void execute(int[] arr) {
+        execute(SortableArray.of(arr));
+    }
+
+    @Override
+    final void executeOffHeap(SortableArray arr) {
+        execute(arr);
+    }
+
+    /**
+     * The procedure that will be visualized. If the procedure is interrupted, it should stop executing and return.
+     * @param arr the input array
+     */
+    protected abstract void execute(SortableArray arr);
+}
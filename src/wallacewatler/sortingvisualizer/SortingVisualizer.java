@@ -8,6 +8,8 @@ import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.function.ToLongFunction;
 import java.util.stream.IntStream;
 
 /**
@@ -16,23 +18,37 @@ import java.util.stream.IntStream;
  */
 public class SortingVisualizer extends Canvas {
     private static final double TARGET_FPS = 30;
+    private static final Font METRICS_FONT = new Font("Consolas", Font.PLAIN, 16);
+    private static final int MAX_WORKERS_SHOWN = 16;
     private final JFrame frame = new JFrame("Sorting Visualizer");
     private final int[] array;
-    private final int horizontalScale;
+    private final int pixelsPerColumn;
+    private final int canvasWidth;
     private final int canvasHeight;
+    private final BarRaster raster;
+    private final ColumnModel columns;
     private final Thread renderThread = new Thread(this::renderLoop, "renderLoop");
-    private final Thread simulationThread = new Thread(this::simulationLoop, "simulationLoop");
+    private final StepPacer pacer = new StepPacer();
     private final List<Algorithm> algorithms = new ArrayList<>();
+    private final Random seeds = new Random();
     private int currentAlg = 1;
     private Thread algorithmThread;
+    /** The race being run instead of the current algorithm, or null. */
+    private volatile Race race;
+    private boolean racing;
     private Color backgroundColor = Color.DARK_GRAY;
     private Color dataColor = Color.LIGHT_GRAY;
     private Color pointOfInterestColor = Color.RED;
     private Color metricsColor = Color.GREEN;
     private Color instructionsColor = Color.BLACK;
     private int stepSpeedExponent = 8;
+    private RenderMode renderMode = RenderMode.RASTER;
+    private Aggregation aggregation = Aggregation.MEAN;
     private boolean paused = true;
     private boolean running = true;
+    /** The levels simulated for every algorithm while the caches are simulated. */
+    private List<CacheSimulator.Level> cacheLevels = CacheSimulator.typicalLevels();
+    private boolean simulatingCache;
 
     /**
      * Create a new visualizer with some basic algorithms included. The window width will be
@@ -42,22 +58,33 @@ public class SortingVisualizer extends Canvas {
      * @param canvasHeight the window height
      */
     public SortingVisualizer(int n, int horizontalScale, int canvasHeight) {
-        algorithms.add(new BinaryQuickSort());
-        algorithms.add(new BubbleSort());
-        algorithms.add(new CombSort(1.3));
-        algorithms.add(new InsertionSort());
-        algorithms.add(new QuickInsertSort(10));
-        algorithms.add(new QuickShellSort(100, 2.25));
-        algorithms.add(new QuickSort());
-        algorithms.add(new SelectionSort());
-        algorithms.add(new ShellSort(2.25));
+        this(n, 1, horizontalScale, canvasHeight);
+    }
+
+    /**
+     * Create a new visualizer with some basic algorithms included, fitting the array into a window of fixed size. If the
+     * array has more elements than the window is wide, several elements share a pixel column, and each column shows an
+     * aggregate of its elements.
+     * @param n the size of the array
+     * @param canvasSize the window size
+     * @see SortingVisualizer#setAggregation(Aggregation)
+     */
+    public SortingVisualizer(int n, Dimension canvasSize) {
+        this(n, (n + canvasSize.width - 1) / canvasSize.width, Math.max(1, canvasSize.width / n), canvasSize.height);
+    }
+
+    private SortingVisualizer(int n, int elementsPerColumn, int pixelsPerColumn, int canvasHeight) {
+        algorithms.addAll(Util.builtInAlgorithms());
 
         array = IntStream.range(0, n).toArray();
-        this.horizontalScale = horizontalScale;
+        this.pixelsPerColumn = pixelsPerColumn;
         this.canvasHeight = canvasHeight;
-        algorithmThread = new Thread(() -> algorithms.get(currentAlg).execute(array), "algorithm");
+        columns = new ColumnModel(array, elementsPerColumn);
+        canvasWidth = columns.numColumns * pixelsPerColumn;
+        raster = new BarRaster(canvasWidth, canvasHeight);
+        algorithmThread = new Thread(() -> algorithms.get(currentAlg).run(array), "algorithm");
 
-        final Dimension d = new Dimension(n * horizontalScale, canvasHeight);
+        final Dimension d = new Dimension(canvasWidth, canvasHeight);
         setSize(d);
         setPreferredSize(d);
         setMinimumSize(d);
@@ -89,46 +116,59 @@ public class SortingVisualizer extends Canvas {
                 switch(e.getKeyCode()) {
                     case KeyEvent.VK_LEFT -> previousAlgorithm();
                     case KeyEvent.VK_RIGHT -> nextAlgorithm();
-                    case KeyEvent.VK_COMMA -> stepSpeedExponent = stepSpeedExponent <= 0 ? 0 : (stepSpeedExponent - 1);
-                    case KeyEvent.VK_PERIOD -> stepSpeedExponent++;
-                    case KeyEvent.VK_SPACE -> paused = !paused;
+                    case KeyEvent.VK_COMMA -> {
+                        stepSpeedExponent = stepSpeedExponent <= 0 ? 0 : (stepSpeedExponent - 1);
+                        pacer.setRate(Math.scalb(1.0, stepSpeedExponent));
+                    }
+                    case KeyEvent.VK_PERIOD -> {
+                        stepSpeedExponent++;
+                        pacer.setRate(Math.scalb(1.0, stepSpeedExponent));
+                    }
+                    case KeyEvent.VK_SPACE -> {
+                        paused = !paused;
+                        pacer.setPaused(paused);
+                    }
+                    case KeyEvent.VK_HOME -> seekReplay(player -> 0);
+                    case KeyEvent.VK_END -> seekReplay(player -> player.length);
+                    case KeyEvent.VK_OPEN_BRACKET -> seekReplay(player -> player.position() - Math.max(1, player.length / 100));
+                    case KeyEvent.VK_CLOSE_BRACKET -> seekReplay(player -> player.position() + Math.max(1, player.length / 100));
+                    case KeyEvent.VK_PAGE_UP -> seekReplay(player -> player.position() - Math.max(1, player.length / 10));
+                    case KeyEvent.VK_PAGE_DOWN -> seekReplay(player -> player.position() + Math.max(1, player.length / 10));
                 }
             }
 
             public void keyReleased(KeyEvent e) {
                 final Runnable action = switch(e.getKeyCode()) {
                     case KeyEvent.VK_S -> () -> Arrays.sort(array);
-                    case KeyEvent.VK_R -> () -> Util.shuffle(array);
-                    case KeyEvent.VK_M -> () -> {
-                        Arrays.sort(array);
-                        Util.misplace(array, array.length, array.length / 100);
-                    };
-                    case KeyEvent.VK_N -> () -> {
-                        Arrays.sort(array);
-                        Util.misplace(array, Math.max(1, array.length / 300), 10 * array.length);
-                    };
+                    case KeyEvent.VK_R -> generate(InputDistributions.uniform());
+                    case KeyEvent.VK_M -> generate(InputDistributions.fewMisplaced(0.01));
+                    case KeyEvent.VK_N -> generate(InputDistributions.nearlySorted(1 / 300.0));
+                    case KeyEvent.VK_V -> generate(InputDistributions.reversed());
+                    case KeyEvent.VK_U -> generate(InputDistributions.fewUnique(8));
+                    case KeyEvent.VK_Z -> generate(InputDistributions.zipf(1));
+                    case KeyEvent.VK_W -> generate(InputDistributions.sawtooth(8));
+                    case KeyEvent.VK_O -> generate(InputDistributions.organPipe());
+                    case KeyEvent.VK_G -> () -> racing = !racing;
+                    case KeyEvent.VK_C -> () -> setSimulatingCache(!simulatingCache);
                     default -> null;
                 };
 
-                if(action == null)
-                    return;
-
-                algorithmThread.interrupt();
-                try {
-                    algorithmThread.join();
-                } catch(InterruptedException ex) {
-                    throw new RuntimeException(ex);
-                }
-                algorithms.get(currentAlg).reset();
-                action.run();
-                algorithmThread = new Thread(() -> algorithms.get(currentAlg).execute(array), "algorithm");
-                algorithmThread.start();
+                if(action != null)
+                    restartAlgorithm(action);
             }
         });
 
         createBufferStrategy(3);
     }
 
+    /**
+     * @param distribution the distribution of the new input
+     * @return an action that replaces the array with a new input, under a fresh seed
+     */
+    private Runnable generate(InputDistribution distribution) {
+        return () -> distribution.generate(array, seeds.nextLong());
+    }
+
     /**
      * @return The currently running algorithm.
      */
@@ -143,6 +183,8 @@ public class SortingVisualizer extends Canvas {
      * @see SortingVisualizer#start()
      */
     public void addAlgorithm(Algorithm algorithm) {
+        if(simulatingCache)
+            algorithm.simulateCache(new CacheSimulator(cacheLevels));
         algorithms.add(algorithm);
     }
 
@@ -186,14 +228,63 @@ public class SortingVisualizer extends Canvas {
         this.instructionsColor = instructionsColor;
     }
 
+    public RenderMode getRenderMode() {
+        return renderMode;
+    }
+
+    public void setRenderMode(RenderMode renderMode) {
+        this.renderMode = renderMode;
+    }
+
+    public List<CacheSimulator.Level> getCacheLevels() {
+        return cacheLevels;
+    }
+
+    /**
+     * @param cacheLevels the cache levels to simulate, which take effect the next time cache simulation is turned on
+     */
+    public void setCacheLevels(List<CacheSimulator.Level> cacheLevels) {
+        this.cacheLevels = List.copyOf(cacheLevels);
+    }
+
+    public boolean isSimulatingCache() {
+        return simulatingCache;
+    }
+
+    /**
+     * Give every algorithm its own {@link CacheSimulator}, so that the cache hits and misses of each level are shown
+     * with the other metrics. This slows down every array access. Must be called before {@code start()}; afterwards,
+     * the C key toggles the simulation.
+     * @param simulatingCache true to simulate the caches described by {@code getCacheLevels()}
+     */
+    public void setSimulatingCache(boolean simulatingCache) {
+        this.simulatingCache = simulatingCache;
+        for(Algorithm algorithm : algorithms)
+            algorithm.simulateCache(simulatingCache ? new CacheSimulator(cacheLevels) : null);
+    }
+
+    public Aggregation getAggregation() {
+        return aggregation;
+    }
+
+    /**
+     * @param aggregation how to combine elements that share a pixel column; this only matters if the array has more
+     *                    elements than the window is wide
+     */
+    public void setAggregation(Aggregation aggregation) {
+        this.aggregation = aggregation;
+    }
+
     /**
      * Start the visualizer. Typically, you should call {@code waitForExit()} after this.
      * @see SortingVisualizer#waitForExit()
      */
     public void start() {
-        algorithmThread.start();
+        startAlgorithm();
         renderThread.start();
-        simulationThread.start();
+        pacer.setRate(Math.scalb(1.0, stepSpeedExponent));
+        pacer.setPaused(paused);
+        pacer.start();
     }
 
     /**
@@ -203,8 +294,11 @@ public class SortingVisualizer extends Canvas {
     public void stop() {
         running = false;
         algorithmThread.interrupt();
+        final Race currentRace = race;
+        if(currentRace != null)
+            currentRace.interrupt();
         renderThread.interrupt();
-        simulationThread.interrupt();
+        pacer.stop();
     }
 
     /**
@@ -213,54 +307,74 @@ public class SortingVisualizer extends Canvas {
      */
     public void waitForExit() throws InterruptedException {
         algorithmThread.join();
-        simulationThread.join();
+        final Race currentRace = race;
+        if(currentRace != null)
+            currentRace.join();
+        pacer.join();
         renderThread.join();
         frame.dispose();
     }
 
     private void nextAlgorithm() {
-        algorithmThread.interrupt();
-        try {
-            algorithmThread.join();
-        } catch(InterruptedException ex) {
-            throw new RuntimeException(ex);
-        }
-        algorithms.get(currentAlg).reset();
-        currentAlg = (currentAlg + 1) % algorithms.size();
-        algorithmThread = new Thread(() -> algorithms.get(currentAlg).execute(array), "algorithm");
-        algorithmThread.start();
+        restartAlgorithm(() -> currentAlg = (currentAlg + 1) % algorithms.size());
     }
 
     private void previousAlgorithm() {
-        algorithmThread.interrupt();
-        try {
-            algorithmThread.join();
-        } catch(InterruptedException ex) {
-            throw new RuntimeException(ex);
-        }
-        algorithms.get(currentAlg).reset();
-        currentAlg = currentAlg == 0 ? algorithms.size() - 1 : currentAlg - 1;
-        algorithmThread = new Thread(() -> algorithms.get(currentAlg).execute(array), "algorithm");
-        algorithmThread.start();
+        restartAlgorithm(() -> currentAlg = currentAlg == 0 ? algorithms.size() - 1 : currentAlg - 1);
     }
 
-    private void simulationLoop() {
-        long now, lastTime = System.nanoTime();
-        double dt = 0;
-        while(!Thread.interrupted()) {
-            now = System.nanoTime();
-            dt += (now - lastTime) / 1_000_000_000.0;
-            lastTime = now;
-
-            if(paused || !algorithmThread.isAlive()) {
-                dt = 0;
-            } else {
-                final double stepInterval = 1.0 / (1L << stepSpeedExponent);
-                final int numSteps = (int) (dt / stepInterval);
-                currentAlgorithm().step(numSteps);
-                dt -= numSteps * stepInterval;
+    /**
+     * Stop the current algorithm or race, apply a change to the array, the algorithm selection, or the race mode, then
+     * start again from the beginning.
+     * @param change the change to apply while no algorithm is running
+     */
+    private void restartAlgorithm(Runnable change) {
+        if(race != null) {
+            race.stop();
+            race = null;
+        } else {
+            algorithmThread.interrupt();
+            try {
+                algorithmThread.join();
+            } catch(InterruptedException ex) {
+                throw new RuntimeException(ex);
             }
+            final Algorithm previous = algorithms.get(currentAlg);
+            previous.reset();
+            previous.trackWrites(null, null);
         }
+        change.run();
+        columns.rebuild();
+        if(racing)
+            startRace();
+        else
+            startAlgorithm();
+    }
+
+    /**
+     * If the current algorithm is a replay, move it to another operation.
+     * @param target the operation to move to, given the stopped player
+     */
+    private void seekReplay(ToLongFunction<TracePlayer> target) {
+        if(race == null && algorithms.get(currentAlg) instanceof TracePlayer player)
+            restartAlgorithm(() -> player.seek(target.applyAsLong(player)));
+    }
+
+    /**
+     * Race every algorithm against each other on copies of the current array.
+     */
+    private void startRace() {
+        final Race newRace = new Race(algorithms, array, canvasWidth, canvasHeight);
+        newRace.start(pacer);
+        race = newRace;
+    }
+
+    private void startAlgorithm() {
+        final Algorithm algorithm = algorithms.get(currentAlg);
+        algorithm.trackWrites(array, columns);
+        algorithmThread = new Thread(algorithm::run, "algorithm");
+        algorithmThread.start();
+        pacer.setTarget(algorithm, algorithmThread);
     }
 
     private void renderLoop() {
@@ -278,40 +392,127 @@ public class SortingVisualizer extends Canvas {
     private void render() {
         final BufferStrategy bs = getBufferStrategy();
         final Graphics g = bs.getDrawGraphics();
-        g.setColor(backgroundColor);
-        g.fillRect(0, 0, frame.getWidth(), frame.getHeight());
+        final Race currentRace = race;
+        if(currentRace == null)
+            renderAlgorithm(g);
+        else
+            renderRace(g, currentRace);
 
-        final Algorithm algorithm = algorithms.get(currentAlg);
+        g.setColor(instructionsColor);
+        g.setFont(METRICS_FONT);
+        g.drawString("Space: pause    R: random    N: nearly sorted    M: misplaced    V, U, Z, W, O: other inputs    S: sorted    Left, Right: change algorithm    Comma: slower    Period: faster    G: race    C: cache", canvasWidth - 1680, canvasHeight - 10);
 
-        for(int i = 0; i < array.length; i++) {
-            final int height = canvasHeight * array[i] / (array.length - 1);
+        g.dispose();
+        bs.show();
+    }
 
-            if(algorithmThread.isAlive() && algorithm.isPointOfInterest(i))
-                g.setColor(pointOfInterestColor);
-            else
-                g.setColor(dataColor);
+    private void renderAlgorithm(Graphics g) {
+        final Algorithm algorithm = algorithms.get(currentAlg);
+        final ColumnModel.Frame columnFrame = columns.latestFrame();
+        final boolean highlight = algorithmThread.isAlive();
+
+        if(renderMode == RenderMode.RASTER) {
+            raster.draw(columns, columnFrame, pixelsPerColumn, aggregation, highlight, backgroundColor.getRGB(), dataColor.getRGB(), pointOfInterestColor.getRGB());
+            g.drawImage(raster.image, 0, 0, null);
+        } else {
+            g.setColor(backgroundColor);
+            g.fillRect(0, 0, frame.getWidth(), frame.getHeight());
+
+            g.setColor(dataColor);
+            for(int c = 0; c < columns.numColumns; c++) {
+                final int height = (int) (canvasHeight * (long) columnFrame.value(c, aggregation) / columns.maxValue());
+                g.fillRect(c * pixelsPerColumn, canvasHeight - height, pixelsPerColumn, height);
+            }
 
-            g.fillRect(i * horizontalScale, canvasHeight - height, horizontalScale, height);
+            if(highlight) {
+                g.setColor(pointOfInterestColor);
+                for(int c : columnFrame.pointsOfInterest()) {
+                    final int height = (int) (canvasHeight * (long) columnFrame.value(c, aggregation) / columns.maxValue());
+                    g.fillRect(c * pixelsPerColumn, canvasHeight - height, pixelsPerColumn, height);
+                }
+            }
         }
 
         final int metricsLeftEdge = 10;
         final int metricsMarginY = 10;
         g.setColor(metricsColor);
-        g.setFont(new Font("Consolas", Font.PLAIN, 16));
+        g.setFont(METRICS_FONT);
         g.drawString(algorithm.name, metricsLeftEdge, 10 + metricsMarginY);
-        g.drawString(formatSpeedExp() + (paused ? ", paused" : ""), metricsLeftEdge, 25 + metricsMarginY);
-        g.drawString("Comparisons: " + formatCount(algorithm.metrics.numComparisons), metricsLeftEdge, 40 + metricsMarginY);
-        g.drawString("Swaps: " + formatCount(algorithm.metrics.numSwaps), metricsLeftEdge, 55 + metricsMarginY);
-        g.drawString("Main array reads: " + formatCount(algorithm.metrics.numMainArrayReads), metricsLeftEdge, 70 + metricsMarginY);
-        g.drawString("Main array writes: " + formatCount(algorithm.metrics.numMainArrayWrites), metricsLeftEdge, 85 + metricsMarginY);
-        g.drawString("Auxiliary array reads: " + formatCount(algorithm.metrics.numAuxArrayReads), metricsLeftEdge, 100 + metricsMarginY);
-        g.drawString("Auxiliary array writes: " + formatCount(algorithm.metrics.numAuxArrayWrites), metricsLeftEdge, 115 + metricsMarginY);
-
-        g.setColor(instructionsColor);
-        g.drawString("Space: pause    R: random    N: nearly sorted    M: misplaced    S: sorted    Left: previous algorithm    Right: next algorithm    Comma: slower    Period: faster", array.length * horizontalScale - 1500, canvasHeight - 10);
+        g.drawString(formatSpeedExp() + (paused ? ", paused" : formatAchievedRate()), metricsLeftEdge, 25 + metricsMarginY);
+        final Metrics.Record metrics = algorithm.metrics.record();
+        g.drawString("Comparisons: " + formatCount(metrics.numComparisons()), metricsLeftEdge, 40 + metricsMarginY);
+        g.drawString("Swaps: " + formatCount(metrics.numSwaps()), metricsLeftEdge, 55 + metricsMarginY);
+        g.drawString("Main array reads: " + formatCount(metrics.numMainArrayReads()), metricsLeftEdge, 70 + metricsMarginY);
+        g.drawString("Main array writes: " + formatCount(metrics.numMainArrayWrites()), metricsLeftEdge, 85 + metricsMarginY);
+        g.drawString("Auxiliary array reads: " + formatCount(metrics.numAuxArrayReads()), metricsLeftEdge, 100 + metricsMarginY);
+        g.drawString("Auxiliary array writes: " + formatCount(metrics.numAuxArrayWrites()), metricsLeftEdge, 115 + metricsMarginY);
+        int y = 130;
+        if(metrics.numDiskReads() != 0 || metrics.numDiskWrites() != 0) {
+            g.drawString("Disk reads: " + formatCount(metrics.numDiskReads()), metricsLeftEdge, y + metricsMarginY);
+            g.drawString("Disk writes: " + formatCount(metrics.numDiskWrites()), metricsLeftEdge, y + 15 + metricsMarginY);
+            y += 30;
+        }
+        final CacheSimulator cache = algorithm.cacheSimulator();
+        if(cache != null) {
+            for(int l = 0; l < cache.levels().size(); l++) {
+                g.drawString("L" + (l + 1) + " cache hits: " + formatCount(metrics.cacheHits(l)) + ", misses: "
+                        + formatCount(metrics.cacheMisses(l)), metricsLeftEdge, y + metricsMarginY);
+                y += 15;
+            }
+        }
+        if(algorithm instanceof TracePlayer player) {
+            g.drawString("Operation: " + formatCount(player.position()) + " / " + formatCount(player.length),
+                    metricsLeftEdge, y + metricsMarginY);
+            y += 15;
+        }
+        final List<Metrics.Record> workerMetrics = algorithm.metrics.stripeRecords();
+        for(int w = 0; w < Math.min(workerMetrics.size(), MAX_WORKERS_SHOWN); w++) {
+            final Metrics.Record worker = workerMetrics.get(w);
+            g.drawString("Worker #" + w + ": " + formatCount(worker.numComparisons()) + " comparisons, "
+                    + formatCount(worker.numMainArrayWrites()) + " writes", metricsLeftEdge, y + 15 * w + metricsMarginY);
+        }
+    }
 
-        g.dispose();
-        bs.show();
+    /**
+     * Draw every racer in its own pane, with a short summary of its metrics. Panes are always rasterized, since they
+     * are usually too narrow for the render mode to matter.
+     */
+    private void renderRace(Graphics g, Race race) {
+        g.setColor(backgroundColor.darker());
+        g.fillRect(0, 0, canvasWidth, canvasHeight);
+        g.setFont(METRICS_FONT);
+
+        final List<Race.Racer> racers = race.racers();
+        for(int k = 0; k < racers.size(); k++) {
+            final Race.Racer racer = racers.get(k);
+            final int x = (k % race.gridColumns) * (race.paneWidth + Race.PANE_GAP);
+            final int y = (k / race.gridColumns) * (race.paneHeight + Race.PANE_GAP);
+            final boolean running = racer.isRunning();
+            racer.raster.draw(racer.columns, racer.columns.latestFrame(), racer.pixelsPerColumn, aggregation, running,
+                    backgroundColor.getRGB(), dataColor.getRGB(), pointOfInterestColor.getRGB());
+            g.drawImage(racer.raster.image, x, y, null);
+
+            final String status;
+            if(!running)
+                status = "Finished #" + racer.place();
+            else if(paused)
+                status = "Paused";
+            else
+                status = formatSpeedExp() + formatAchievedRate(pacer.achievedRate(racer.algorithm));
+
+            final Metrics.Record metrics = racer.algorithm.metrics.record();
+            g.setColor(metricsColor);
+            g.drawString(racer.algorithm.name, x + 10, y + 20);
+            g.drawString(status, x + 10, y + 35);
+            g.drawString("Comparisons: " + formatCount(metrics.numComparisons()), x + 10, y + 50);
+            g.drawString("Swaps: " + formatCount(metrics.numSwaps()), x + 10, y + 65);
+            g.drawString("Writes: " + formatCount(metrics.numMainArrayWrites() + metrics.numAuxArrayWrites()), x + 10, y + 80);
+            final CacheSimulator cache = racer.algorithm.cacheSimulator();
+            if(cache != null) {
+                final int last = cache.levels().size() - 1;
+                g.drawString("L" + (last + 1) + " cache misses: " + formatCount(metrics.cacheMisses(last)), x + 10, y + 95);
+            }
+        }
     }
 
     private String formatSpeedExp() {
@@ -324,9 +525,23 @@ public class SortingVisualizer extends Canvas {
         return (1L << -stepSpeedExponent) + " seconds per step";
     }
 
-    private static String formatCount(int count) {
+    private String formatAchievedRate() {
+        if(!algorithmThread.isAlive())
+            return "";
+
+        return formatAchievedRate(pacer.achievedRate());
+    }
+
+    private String formatAchievedRate(double achieved) {
+        if(achieved >= 0.99 * pacer.requestedRate())
+            return "";
+
+        return ", achieved " + formatCount((long) achieved);
+    }
+
+    private static String formatCount(long count) {
         if(count < 10_000)
-            return Integer.toString(count);
+            return Long.toString(count);
 
         if(count < 100_000)
             return new DecimalFormat("#.# K").format(count / 1000.0);
@@ -343,6 +558,37 @@ public class SortingVisualizer extends Canvas {
         if(count < 1_000_000_000)
             return (count / 1_000_000) + " M";
 
-        return new DecimalFormat("#.## B").format(count / 1_000_000_000.0);
+        if(count < 10_000_000_000L)
+            return new DecimalFormat("#.## B").format(count / 1_000_000_000.0);
+
+        if(count < 100_000_000_000L)
+            return new DecimalFormat("#.# B").format(count / 1_000_000_000.0);
+
+        if(count < 1_000_000_000_000L)
+            return (count / 1_000_000_000) + " B";
+
+        return new DecimalFormat("#.## T").format(count / 1_000_000_000_000.0);
+    }
+
+    /**
+     * How the elements sharing a pixel column are combined into the height of the column.
+     */
+    public enum Aggregation {
+        /** The smallest element of the column. */
+        MIN,
+        /** The largest element of the column. */
+        MAX,
+        /** The mean of the elements of the column. */
+        MEAN
+    }
+
+    /**
+     * How the array is drawn.
+     */
+    public enum RenderMode {
+        /** Each element is drawn as a filled rectangle. This is slow for large arrays. */
+        SHAPES,
+        /** The array is drawn into a pixel buffer, which is then shown in one operation. */
+        RASTER
     }
 }
@@ -0,0 +1,141 @@
+package wallacewatler.sortingvisualizer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A pool of step permits shared between the pacer and the threads executing an algorithm. Executing threads claim
+ * permits in chunks rather than one at a time, so that they only touch this shared state once per chunk.
+ */
+final class StepGate {
+    /** The number of permits handed out per claim when the gate is unlimited. */
+    private static final int UNLIMITED_CLAIM = 1024;
+
+    private final AtomicInteger permits = new AtomicInteger();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private volatile int maxClaim = 1;
+    private volatile boolean unlimited;
+    private volatile boolean cancelled;
+
+    /**
+     * Add permits to the pool, waking up any threads waiting for them.
+     * @param count the number of permits to add
+     */
+    void release(int count) {
+        permits.getAndAdd(count);
+        if(waiters.get() > 0)
+            signalWaiters();
+    }
+
+    /**
+     * @return the number of permits in the pool, not counting those already claimed
+     */
+    int available() {
+        return permits.get();
+    }
+
+    /** Removes all permits from the pool. */
+    void drain() {
+        permits.set(0);
+    }
+
+    /** Make every claim fail until {@code reopen()}, waking up any threads waiting for permits. */
+    void cancel() {
+        cancelled = true;
+        signalWaiters();
+    }
+
+    /** Undo {@code cancel()}. */
+    void reopen() {
+        cancelled = false;
+    }
+
+    /**
+     * Limit how many permits a single claim may take. Keeping this to a fraction of a frame's worth of steps bounds how
+     * long a thread keeps running on claimed permits after the pool is drained.
+     * @param maxClaim the maximum number of permits per claim, at least 1
+     */
+    void setMaxClaim(int maxClaim) {
+        this.maxClaim = Math.max(1, maxClaim);
+    }
+
+    /**
+     * @return the maximum number of permits per claim
+     */
+    int maxClaim() {
+        return maxClaim;
+    }
+
+    /**
+     * @param unlimited if true, claims never block and do not consume permits from the pool
+     */
+    void setUnlimited(boolean unlimited) {
+        this.unlimited = unlimited;
+        if(unlimited && waiters.get() > 0)
+            signalWaiters();
+    }
+
+    /**
+     * Claim a chunk of permits, blocking until at least one is available.
+     * @param beforeWait run once before the current thread blocks, or null
+     * @return the number of permits claimed, at least 1
+     * @throws InterruptedException if the current thread is interrupted or the gate is cancelled
+     */
+    int claim(Runnable beforeWait) throws InterruptedException {
+        if(Thread.interrupted() || cancelled)
+            throw new InterruptedException();
+
+        if(unlimited)
+            return UNLIMITED_CLAIM;
+
+        int claimed = tryClaim();
+        if(claimed > 0)
+            return claimed;
+
+        if(beforeWait != null)
+            beforeWait.run();
+
+        lock.lockInterruptibly();
+        try {
+            waiters.incrementAndGet();
+            try {
+                while((claimed = tryClaim()) == 0) {
+                    if(cancelled)
+                        throw new InterruptedException();
+                    if(unlimited)
+                        return UNLIMITED_CLAIM;
+                    released.await();
+                }
+                return claimed;
+            } finally {
+                waiters.decrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int tryClaim() {
+        while(true) {
+            final int available = permits.get();
+            if(available <= 0)
+                return 0;
+
+            final int claimed = Math.min(available, maxClaim);
+            if(permits.compareAndSet(available, available - claimed))
+                return claimed;
+        }
+    }
+
+    private void signalWaiters() {
+        lock.lock();
+        try {
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package wallacewatler.sortingvisualizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Releases step permits to one or more algorithms at a requested rate. Every algorithm is offered the same number of
+ * permits, so algorithms racing each other are compared step for step. Between ticks the pacer thread is parked, and
+ * while the pacer is paused or no algorithm thread is running it is parked indefinitely, so it uses no CPU.
+ */
+final class StepPacer {
+    /** The shortest time between two ticks. At high rates, each tick releases a batch of permits. */
+    private static final long MIN_TICK_NANOS = 1_000_000;
+    /** The longest time between two ticks, so that the achieved rate stays up to date at slow rates. */
+    private static final long MAX_TICK_NANOS = 250_000_000;
+    /** Permits that the algorithm has not consumed yet are capped to this many seconds' worth of steps. */
+    private static final double MAX_BACKLOG_SECONDS = 0.1;
+    /**
+     * An algorithm may claim at most this many seconds' worth of steps at once, which bounds how long it keeps running
+     * after being paused.
+     */
+    private static final double MAX_CLAIM_SECONDS = 1 / 60.0;
+    /** The achieved rate is measured over windows of this length. */
+    private static final long RATE_WINDOW_NANOS = 500_000_000;
+
+    private final Thread thread = new Thread(this::loop, "stepPacer");
+    private volatile List<Target> targets = List.of();
+    private volatile boolean paused = true;
+    private volatile double requestedRate = 1;
+    /** The achieved rate of each target, replaced as a whole at the end of every window. */
+    private volatile double[] achievedRates = new double[0];
+
+    void start() {
+        thread.start();
+    }
+
+    void stop() {
+        thread.interrupt();
+    }
+
+    void join() throws InterruptedException {
+        thread.join();
+    }
+
+    /**
+     * Set the algorithm to release permits to. The pacer stays idle once {@code algorithmThread} dies.
+     * @param algorithm the algorithm to step
+     * @param algorithmThread the thread executing {@code algorithm}; this should already be started
+     */
+    void setTarget(Algorithm algorithm, Thread algorithmThread) {
+        setTargets(List.of(algorithm), List.of(algorithmThread));
+    }
+
+    /**
+     * Set the algorithms to release permits to. Each algorithm stops receiving permits once its thread dies, and the
+     * pacer stays idle once all of them have died.
+     * @param algorithms the algorithms to step
+     * @param algorithmThreads the thread executing each algorithm; these should already be started
+     */
+    void setTargets(List<Algorithm> algorithms, List<Thread> algorithmThreads) {
+        final List<Target> newTargets = new ArrayList<>();
+        for(int i = 0; i < algorithms.size(); i++)
+            newTargets.add(new Target(algorithms.get(i), algorithmThreads.get(i)));
+        targets = List.copyOf(newTargets);
+        LockSupport.unpark(thread);
+    }
+
+    void setPaused(boolean paused) {
+        this.paused = paused;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * @param stepsPerSecond the number of step permits to release per second
+     */
+    void setRate(double stepsPerSecond) {
+        requestedRate = stepsPerSecond;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * @return the number of step permits requested per second
+     */
+    double requestedRate() {
+        return requestedRate;
+    }
+
+    /**
+     * @return the number of steps per second the first target actually took, measured over the last half second; this
+     *         is lower than the requested rate if the algorithm cannot keep up
+     */
+    double achievedRate() {
+        final double[] rates = achievedRates;
+        return rates.length == 0 ? 0 : rates[0];
+    }
+
+    /**
+     * @param algorithm one of the targets
+     * @return the number of steps per second {@code algorithm} actually took, measured over the last half second, or 0
+     *         if it is not a target
+     */
+    double achievedRate(Algorithm algorithm) {
+        final List<Target> current = targets;
+        final double[] rates = achievedRates;
+        for(int i = 0; i < Math.min(current.size(), rates.length); i++) {
+            if(current.get(i).algorithm == algorithm)
+                return rates[i];
+        }
+        return 0;
+    }
+
+    private void loop() {
+        List<Target> current = null;
+        boolean idle = true;
+        long lastTime = 0;
+        double owed = 0;
+        long[] released = new long[0];
+        long windowStart = 0;
+        long[] windowConsumed = new long[0];
+
+        while(!Thread.currentThread().isInterrupted()) {
+            final List<Target> targets = this.targets;
+            if(paused || targets.stream().noneMatch(target -> target.thread.isAlive())) {
+                for(Target target : targets)
+                    target.algorithm.drainSteps();
+                achievedRates = new double[targets.size()];
+                idle = true;
+                LockSupport.park(this);
+                continue;
+            }
+
+            final long now = System.nanoTime();
+            if(targets != current) {
+                current = targets;
+                released = new long[targets.size()];
+                windowConsumed = new long[targets.size()];
+                idle = true;
+            }
+            if(idle) {
+                idle = false;
+                lastTime = now;
+                owed = 0;
+                windowStart = now;
+                for(int i = 0; i < targets.size(); i++)
+                    windowConsumed[i] = released[i] - targets.get(i).algorithm.availableSteps();
+            }
+
+            final double rate = requestedRate;
+            owed += (now - lastTime) * rate / 1_000_000_000.0;
+            lastTime = now;
+
+            final int maxClaim = (int) Math.min(rate * MAX_CLAIM_SECONDS, Integer.MAX_VALUE);
+            final int backlogCap = (int) Math.max(1, Math.min(rate * MAX_BACKLOG_SECONDS, Integer.MAX_VALUE / 2.0));
+            final int numSteps = (int) Math.min(owed, backlogCap);
+            if(numSteps > 0) {
+                for(int i = 0; i < targets.size(); i++) {
+                    final Target target = targets.get(i);
+                    if(!target.thread.isAlive())
+                        continue;
+
+                    target.algorithm.setMaxStepClaim(maxClaim);
+                    final int given = Math.min(numSteps, backlogCap - target.algorithm.availableSteps());
+                    if(given > 0) {
+                        target.algorithm.step(given);
+                        released[i] += given;
+                    }
+                }
+                owed -= numSteps;
+            }
+            // Steps an algorithm could not keep up with are dropped instead of piling up
+            owed = Math.min(owed, 1);
+
+            if(now - windowStart >= RATE_WINDOW_NANOS) {
+                final double[] rates = new double[targets.size()];
+                for(int i = 0; i < targets.size(); i++) {
+                    final long consumed = released[i] - targets.get(i).algorithm.availableSteps();
+                    rates[i] = (consumed - windowConsumed[i]) * 1_000_000_000.0 / (now - windowStart);
+                    windowConsumed[i] = consumed;
+                }
+                achievedRates = rates;
+                windowStart = now;
+            }
+
+            final long tickNanos = (long) Math.min(Math.max(1_000_000_000.0 / rate, MIN_TICK_NANOS), MAX_TICK_NANOS);
+            LockSupport.parkNanos(this, tickNanos);
+        }
+    }
+
+    private record Target(Algorithm algorithm, Thread thread) {}
+}
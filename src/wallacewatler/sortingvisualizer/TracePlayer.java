@@ -0,0 +1,293 @@
+package wallacewatler.sortingvisualizer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays back a trace written by {@link TraceRecorder} instead of executing an algorithm. The operations of the trace
+ * go through {@code get()}, {@code set()}, {@code swap()}, {@code compare()}, and {@code copy()} like those of a live
+ * algorithm, so they are paced, counted, and drawn the same way. The array given to {@code execute()} must have the
+ * same size as the traced array; its contents are replaced by the state of the trace at the current position.
+ * <p>
+ * Playback can be moved to any operation with {@code seek()}. When the trace is opened, it is scanned once to build a
+ * keyframe index: at regular intervals, a copy of the array, the metrics, and the file offset and decoder state of the
+ * next event are saved. A seek restores the nearest earlier keyframe and applies at most one interval of events, so
+ * jumping backward costs no more than jumping forward. Keyframes are thinned out as needed to stay within a memory
+ * budget.
+ */
+public final class TracePlayer extends Algorithm implements Closeable {
+    /** Keyframes are at least this many operations apart. */
+    private static final int MIN_KEYFRAME_INTERVAL = 1 << 16;
+    /** The memory keyframes may take, in bytes. */
+    private static final long KEYFRAME_MEMORY_BUDGET = 256L << 20;
+
+    private final TraceReader reader;
+    private final List<Keyframe> keyframes = new ArrayList<>();
+    private long keyframeInterval;
+    /** The number of operations in the trace. */
+    public final long length;
+    /** The number of operations that have been played. */
+    private volatile long position;
+    private int lastI = -1;
+    private int lastJ = -1;
+
+    /**
+     * Open a trace and index it for seeking.
+     * @param file a trace written by {@link TraceRecorder}
+     * @throws IOException if the trace could not be read
+     */
+    public TracePlayer(Path file) throws IOException {
+        this(new TraceReader(file));
+    }
+
+    private TracePlayer(TraceReader reader) throws IOException {
+        super("Replay of " + reader.algorithmName);
+        this.reader = reader;
+        try {
+            length = buildIndex();
+        } catch(IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the number of elements of the traced array
+     */
+    public int arrayLength() {
+        return reader.initial.length;
+    }
+
+    /**
+     * @return the number of operations that have been played
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Move playback to an operation. Must not be called while the player is executing; the array is brought to the
+     * new position the next time it starts.
+     * @param operation the number of operations to have been played, clamped to the length of the trace
+     */
+    public void seek(long operation) {
+        position = Math.max(0, Math.min(operation, length));
+    }
+
+    @Override
+    protected void execute(int[] arr) {
+        if(arr.length != reader.initial.length)
+            throw new IllegalArgumentException("The trace is of " + reader.initial.length + " elements, but the array has "
+                    + arr.length);
+
+        try {
+            restore(arr);
+            arrayReplaced();
+            while(reader.next()) {
+                try { awaitStep(); } catch(InterruptedException e) { return; }
+                countExtras(metrics);
+                play(arr);
+                position++;
+            }
+            countExtras(metrics);
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int[] pointsOfInterest() {
+        return new int[] {lastI, lastJ};
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Scan the whole trace once, saving keyframes along the way.
+     * @return the number of operations in the trace
+     */
+    private long buildIndex() throws IOException {
+        final int n = reader.initial.length;
+        keyframeInterval = Math.max(MIN_KEYFRAME_INTERVAL, n);
+        final int[] state = reader.initial.clone();
+        final Metrics counts = new Metrics();
+        long operation = 0;
+        addKeyframe(0, state, counts);
+        while(reader.next()) {
+            countExtras(counts);
+            apply(state, counts);
+            operation++;
+            if(operation % keyframeInterval == 0) {
+                if((keyframes.size() + 1) * (long) n * Integer.BYTES > KEYFRAME_MEMORY_BUDGET)
+                    thinKeyframes();
+                if(operation % keyframeInterval == 0)
+                    addKeyframe(operation, state, counts);
+            }
+        }
+        countExtras(counts);
+        if(reader.recordedCount != operation)
+            throw new IOException("The trace has " + operation + " operations, but " + reader.recordedCount
+                    + " were recorded");
+        return operation;
+    }
+
+    private void addKeyframe(long operation, int[] state, Metrics counts) {
+        keyframes.add(new Keyframe(operation, reader.offset(), reader.lastIndex(), reader.lastValue(), state.clone(),
+                counts.record()));
+    }
+
+    /** Keep every other keyframe and double the interval between them. */
+    private void thinKeyframes() {
+        final List<Keyframe> kept = new ArrayList<>();
+        for(int k = 0; k < keyframes.size(); k += 2)
+            kept.add(keyframes.get(k));
+        keyframes.clear();
+        keyframes.addAll(kept);
+        keyframeInterval *= 2;
+    }
+
+    /**
+     * Bring the array and metrics to the current position, from the nearest keyframe at or before it.
+     */
+    private void restore(int[] arr) throws IOException {
+        final Keyframe keyframe = keyframes.get((int) Math.min(position / keyframeInterval, keyframes.size() - 1));
+        System.arraycopy(keyframe.state, 0, arr, 0, arr.length);
+        metrics.clear();
+        metrics.add(keyframe.metrics);
+        reader.seek(keyframe.offset, keyframe.lastIndex, keyframe.lastValue);
+        for(long operation = keyframe.operation; operation < position; operation++) {
+            if(!reader.next())
+                throw new IOException("The trace ended before operation " + position);
+            countExtras(metrics);
+            apply(arr, metrics);
+        }
+        lastI = -1;
+        lastJ = -1;
+    }
+
+    /**
+     * Count what the algorithm counted itself ahead of the last decoded event.
+     */
+    private void countExtras(Metrics counts) {
+        counts.numComparisons += reader.extraComparisons;
+        counts.numDiskReads += reader.extraDiskReads;
+        counts.numDiskWrites += reader.extraDiskWrites;
+    }
+
+    /**
+     * Apply the last decoded event directly to an array, counting it into some metrics.
+     */
+    private void apply(int[] state, Metrics counts) {
+        switch(reader.op) {
+            case TraceRecorder.OP_GET -> countReads(counts, reader.firstAux, 1);
+            case TraceRecorder.OP_SET -> {
+                if(reader.secondAux)
+                    counts.numAuxArrayReads++;
+                countWrites(counts, reader.firstAux, 1);
+                if(!reader.firstAux)
+                    state[reader.i] = reader.value;
+            }
+            case TraceRecorder.OP_SWAP -> {
+                countReads(counts, reader.firstAux, 2);
+                countWrites(counts, reader.firstAux, 2);
+                counts.numSwaps++;
+                if(!reader.firstAux) {
+                    final int temp = state[reader.i];
+                    state[reader.i] = state[reader.j];
+                    state[reader.j] = temp;
+                }
+            }
+            case TraceRecorder.OP_COMPARE -> {
+                countReads(counts, reader.firstAux, 2);
+                counts.numComparisons++;
+            }
+            case TraceRecorder.OP_COPY -> {
+                countReads(counts, reader.firstAux, reader.value);
+                countWrites(counts, reader.secondAux, reader.value);
+                if(!reader.firstAux && !reader.secondAux)
+                    System.arraycopy(state, reader.i, state, reader.j, reader.value);
+            }
+        }
+    }
+
+    /**
+     * Play the last decoded event on the main array through the convenience methods. Operations on auxiliary arrays,
+     * whose contents are not in the trace, are only counted.
+     */
+    private void play(int[] arr) {
+        if(reader.firstAux && (reader.op != TraceRecorder.OP_COPY || reader.secondAux)) {
+            apply(arr, metrics);
+            return;
+        }
+
+        switch(reader.op) {
+            case TraceRecorder.OP_GET -> {
+                get(arr, reader.i);
+                setCursors(reader.i, -1);
+            }
+            case TraceRecorder.OP_SET -> {
+                if(reader.secondAux)
+                    metrics.numAuxArrayReads++;
+                set(arr, reader.i, reader.value);
+                setCursors(reader.i, -1);
+            }
+            case TraceRecorder.OP_SWAP -> {
+                swap(arr, reader.i, reader.j);
+                setCursors(reader.i, reader.j);
+            }
+            case TraceRecorder.OP_COMPARE -> {
+                compare(arr, reader.i, reader.j);
+                setCursors(reader.i, reader.j);
+            }
+            case TraceRecorder.OP_COPY -> {
+                if(reader.secondAux) {
+                    // Only the source is the main array
+                    countReads(metrics, false, reader.value);
+                    countWrites(metrics, true, reader.value);
+                    setCursors(reader.i, -1);
+                } else {
+                    copy(arr, reader.i, arr, reader.j, reader.value);
+                    setCursors(reader.i, reader.j);
+                }
+            }
+        }
+    }
+
+    private void setCursors(int i, int j) {
+        lastI = i;
+        lastJ = j;
+    }
+
+    private static void countReads(Metrics counts, boolean aux, int count) {
+        if(aux)
+            counts.numAuxArrayReads += count;
+        else
+            counts.numMainArrayReads += count;
+    }
+
+    private static void countWrites(Metrics counts, boolean aux, int count) {
+        if(aux)
+            counts.numAuxArrayWrites += count;
+        else
+            counts.numMainArrayWrites += count;
+    }
+
+    /**
+     * The state of a trace after some number of operations.
+     * @param operation the number of operations played
+     * @param offset the file offset of the next event
+     * @param lastIndex the decoder state at the next event
+     * @param lastValue the decoder state at the next event
+     * @param state the main array
+     * @param metrics the metrics
+     */
+    private record Keyframe(long operation, long offset, int lastIndex, int lastValue, int[] state,
+                            Metrics.Record metrics) {}
+}
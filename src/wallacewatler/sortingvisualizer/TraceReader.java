@@ -0,0 +1,237 @@
+package wallacewatler.sortingvisualizer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Decodes the events of a trace written by {@link TraceRecorder}, one at a time. The reader can be moved to any event
+ * whose file offset and decoder state were saved earlier, which is what makes seeking in a replay cheap.
+ */
+final class TraceReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    /** The longest encoded event, including the end marker and its count. */
+    private static final int MAX_EVENT_SIZE = 16;
+
+    final String algorithmName;
+    final int[] initial;
+    /** The file offset of the first event. */
+    final long eventsOffset;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    /** The file offset of the first byte in {@code buffer}. */
+    private long bufferOffset;
+    private boolean endOfFile;
+
+    /** The operation of the last decoded event. */
+    int op;
+    /** True if the first array operand of the last decoded event is an auxiliary array. */
+    boolean firstAux;
+    /** True if the second array operand of the last decoded event is an auxiliary array. */
+    boolean secondAux;
+    /** The first index of the last decoded event. */
+    int i;
+    /** The second index of the last decoded event, if it has one. */
+    int j;
+    /** The value of the last decoded {@code SET}, or the length of the last decoded {@code COPY}. */
+    int value;
+    /**
+     * Comparisons the algorithm counted itself before the last decoded event. If the end of the trace was reached,
+     * these came after the last operation.
+     */
+    long extraComparisons;
+    /** Elements the algorithm counted as read from disk before the last decoded event. */
+    long extraDiskReads;
+    /** Elements the algorithm counted as written to disk before the last decoded event. */
+    long extraDiskWrites;
+    /** The number of events the recorder counted, known once the end of the trace was reached. */
+    long recordedCount = -1;
+    private int lastIndex;
+    private int lastValue;
+
+    TraceReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            final ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(header, 0);
+            if(header.getInt() != TraceRecorder.MAGIC)
+                throw new IOException(file + " is not a trace");
+            if(header.getInt() != TraceRecorder.VERSION)
+                throw new IOException(file + " has an unsupported trace version");
+
+            final ByteBuffer name = ByteBuffer.allocate(header.getInt());
+            readFully(name, 12);
+            algorithmName = new String(name.array(), StandardCharsets.UTF_8);
+
+            final ByteBuffer length = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(length, 12 + name.capacity());
+            initial = new int[length.getInt()];
+            final long arrayOffset = 16L + name.capacity();
+
+            final ByteBuffer elements = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            for(int k = 0; k < initial.length; ) {
+                final int count = Math.min(initial.length - k, BUFFER_SIZE / Integer.BYTES);
+                elements.clear().limit(count * Integer.BYTES);
+                readFully(elements, arrayOffset + (long) k * Integer.BYTES);
+                elements.asIntBuffer().get(initial, k, count);
+                k += count;
+            }
+            eventsOffset = arrayOffset + (long) initial.length * Integer.BYTES;
+        } catch(IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        seek(eventsOffset, 0, 0);
+    }
+
+    /**
+     * @return the file offset of the next event
+     */
+    long offset() {
+        return bufferOffset + buffer.position();
+    }
+
+    int lastIndex() {
+        return lastIndex;
+    }
+
+    int lastValue() {
+        return lastValue;
+    }
+
+    /**
+     * Move to an event.
+     * @param offset the file offset of the event, as returned by {@code offset()} before it was decoded
+     * @param lastIndex the value of {@code lastIndex()} at that time
+     * @param lastValue the value of {@code lastValue()} at that time
+     */
+    void seek(long offset, int lastIndex, int lastValue) throws IOException {
+        this.lastIndex = lastIndex;
+        this.lastValue = lastValue;
+        bufferOffset = offset;
+        endOfFile = false;
+        buffer.clear().limit(0);
+        fill();
+    }
+
+    /**
+     * Decode the next event into the fields of this reader. Indices and values are absolute, not deltas.
+     * @return false if the end of the trace was reached
+     * @throws IOException if the trace could not be read or ends unexpectedly
+     */
+    boolean next() throws IOException {
+        extraComparisons = 0;
+        extraDiskReads = 0;
+        extraDiskWrites = 0;
+        int start;
+        int header;
+        while(true) {
+            if(buffer.remaining() < MAX_EVENT_SIZE)
+                fill();
+            if(!buffer.hasRemaining())
+                throw new IOException("The trace ends without an end marker; the recording was not closed");
+
+            start = buffer.position();
+            header = buffer.get() & 0xFF;
+            if((header & TraceRecorder.OP_MASK) == TraceRecorder.OP_COMPARISONS) {
+                extraComparisons += unsigned() & 0xFFFFFFFFL;
+            } else if((header & TraceRecorder.OP_MASK) == TraceRecorder.OP_DISK_TRANSFERS) {
+                extraDiskReads += unsigned() & 0xFFFFFFFFL;
+                extraDiskWrites += unsigned() & 0xFFFFFFFFL;
+            } else {
+                break;
+            }
+        }
+        op = header & TraceRecorder.OP_MASK;
+        firstAux = (header & TraceRecorder.FIRST_AUX) != 0;
+        secondAux = (header & TraceRecorder.SECOND_AUX) != 0;
+        switch(op) {
+            case TraceRecorder.OP_GET -> i = index();
+            case TraceRecorder.OP_SET -> {
+                i = index();
+                lastValue += signed();
+                value = lastValue;
+            }
+            case TraceRecorder.OP_SWAP, TraceRecorder.OP_COMPARE -> {
+                i = index();
+                j = index();
+            }
+            case TraceRecorder.OP_COPY -> {
+                i = index();
+                j = index();
+                value = unsigned();
+            }
+            case TraceRecorder.OP_END -> {
+                long count = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = buffer.get();
+                    count |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while(b < 0);
+                recordedCount = count;
+                // Stay on the end marker, so that every later call also returns false without counting anything again
+                buffer.position(start);
+                return false;
+            }
+            default -> throw new IOException("Unknown trace operation " + op + " at offset " + (offset() - 1));
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int index() {
+        lastIndex += signed();
+        return lastIndex;
+    }
+
+    private int signed() {
+        final int u = unsigned();
+        return (u >>> 1) ^ -(u & 1);
+    }
+
+    private int unsigned() {
+        int result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            result |= (b & 0x7F) << shift;
+            shift += 7;
+        } while(b < 0);
+        return result;
+    }
+
+    private void fill() throws IOException {
+        if(endOfFile)
+            return;
+        bufferOffset += buffer.position();
+        buffer.compact();
+        while(buffer.hasRemaining()) {
+            final int read = channel.read(buffer, bufferOffset + buffer.position());
+            if(read < 0) {
+                endOfFile = true;
+                break;
+            }
+        }
+        buffer.flip();
+    }
+
+    private void readFully(ByteBuffer target, long position) throws IOException {
+        while(target.hasRemaining()) {
+            if(channel.read(target, position + target.position()) < 0)
+                throw new IOException("Unexpected end of trace");
+        }
+        target.flip();
+    }
+}
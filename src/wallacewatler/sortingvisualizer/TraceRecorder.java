@@ -0,0 +1,259 @@
+package wallacewatler.sortingvisualizer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records every array operation an algorithm makes through {@code get()}, {@code set()}, {@code swap()},
+ * {@code compare()}, and {@code copy()} into a compact binary trace, so that a run can be analyzed or replayed later
+ * without sorting again.
+ * <p>
+ * A trace starts with a header holding the algorithm name and the initial main array, followed by one event per
+ * operation. Each event is a header byte with the operation in the low bits and whether each array operand is an
+ * auxiliary array in the high bits, followed by its operands as variable-length integers. Indices are stored as the
+ * zigzag-encoded difference to the previously recorded index, and values as the difference to the previously recorded
+ * value, so the local access patterns of sorting algorithms mostly take one or two bytes per operand. Events are
+ * encoded into a buffer on the algorithm's thread and written out in large chunks.
+ * <p>
+ * Copies from an auxiliary array into the main array are recorded as one {@code SET} per element, marked as coming
+ * from an auxiliary array, since the trace does not hold the contents of auxiliary arrays. Comparisons and disk
+ * transfers that an algorithm counts into its metrics without going through a convenience method are recorded ahead of
+ * the next operation, so that a replay arrives at the same metrics.
+ */
+public final class TraceRecorder implements Closeable {
+    static final int MAGIC = 0x53565452; // "SVTR"
+    static final int VERSION = 1;
+
+    static final int OP_GET = 0;
+    static final int OP_SET = 1;
+    static final int OP_SWAP = 2;
+    static final int OP_COMPARE = 3;
+    static final int OP_COPY = 4;
+    /**
+     * Comparisons the algorithm counted itself since the previous event, followed by their number. This is not an
+     * operation of its own, so it is not counted as one.
+     */
+    static final int OP_COMPARISONS = 5;
+    /**
+     * Disk transfers the algorithm counted since the previous event, followed by the number of elements read and the
+     * number written. Like {@code OP_COMPARISONS}, this is not an operation of its own.
+     */
+    static final int OP_DISK_TRANSFERS = 6;
+    /** Ends the trace, followed by the number of operations recorded. */
+    static final int OP_END = 7;
+    static final int OP_MASK = 0b111;
+    /** Set if the first array operand is an auxiliary array. */
+    static final int FIRST_AUX = 1 << 3;
+    /**
+     * Set if the second array operand, the destination of a copy, is an auxiliary array. On a {@code SET}, set if the
+     * value was copied from an auxiliary array.
+     */
+    static final int SECOND_AUX = 1 << 4;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    /** The longest event: a header byte and three 5-byte integers. */
+    private static final int MAX_EVENT_SIZE = 16;
+
+    private final FileChannel channel;
+    private final int[] main;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+    private int position;
+    private int lastIndex;
+    private int lastValue;
+    private long operationCount;
+
+    private TraceRecorder(FileChannel channel, int[] main) {
+        this.channel = channel;
+        this.main = main;
+    }
+
+    /**
+     * Start a new trace file, replacing any existing file.
+     * @param file the file to write to
+     * @param algorithmName the name of the algorithm being traced
+     * @param main the main array in its initial state, before the algorithm executes on it
+     * @return a recorder that can be attached to an algorithm
+     * @throws IOException if the file could not be written
+     */
+    public static TraceRecorder create(Path file, String algorithmName, int[] main) throws IOException {
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            final byte[] name = algorithmName.getBytes(StandardCharsets.UTF_8);
+            final ByteBuffer header = ByteBuffer.allocate(16 + name.length).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(name.length).put(name).putInt(main.length).flip();
+            writeFully(channel, header);
+
+            final ByteBuffer elements = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            for(int i = 0; i < main.length; ) {
+                final int count = Math.min(main.length - i, BUFFER_SIZE / Integer.BYTES);
+                elements.clear();
+                elements.asIntBuffer().put(main, i, count);
+                elements.limit(count * Integer.BYTES);
+                writeFully(channel, elements);
+                i += count;
+            }
+        } catch(IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return new TraceRecorder(channel, main);
+    }
+
+    /**
+     * @return the number of operations recorded so far
+     */
+    public long operationCount() {
+        return operationCount;
+    }
+
+    void get(int[] arr, int i) {
+        event(OP_GET, arr, null);
+        index(i);
+    }
+
+    void set(int[] arr, int i, int value) {
+        event(OP_SET, arr, null);
+        index(i);
+        value(value);
+    }
+
+    void swap(int[] arr, int i, int j) {
+        event(OP_SWAP, arr, null);
+        index(i);
+        index(j);
+    }
+
+    void compare(int[] arr, int i, int j) {
+        event(OP_COMPARE, arr, null);
+        index(i);
+        index(j);
+    }
+
+    void copy(int[] src, int srcPos, int[] dest, int destPos, int length) {
+        if(dest == main && src != main) {
+            for(int k = 0; k < length; k++) {
+                event(OP_SET, dest, src);
+                index(destPos + k);
+                value(src[srcPos + k]);
+            }
+            return;
+        }
+        event(OP_COPY, src, dest);
+        index(srcPos);
+        index(destPos);
+        unsigned(length);
+    }
+
+    /**
+     * @param count the number of comparisons counted by the algorithm since the previous event, at least 1
+     */
+    void comparisons(long count) {
+        while(count > 0) {
+            final int chunk = (int) Math.min(count, Integer.MAX_VALUE);
+            ensureSpace();
+            buffer[position++] = (byte) OP_COMPARISONS;
+            unsigned(chunk);
+            count -= chunk;
+        }
+    }
+
+    /**
+     * @param reads the number of elements the algorithm counted as read from disk since the previous event
+     * @param writes the number of elements the algorithm counted as written to disk since the previous event
+     */
+    void diskTransfers(long reads, long writes) {
+        while(reads > 0 || writes > 0) {
+            final int readChunk = (int) Math.min(reads, Integer.MAX_VALUE);
+            final int writeChunk = (int) Math.min(writes, Integer.MAX_VALUE);
+            ensureSpace();
+            buffer[position++] = (byte) OP_DISK_TRANSFERS;
+            unsigned(readChunk);
+            unsigned(writeChunk);
+            reads -= readChunk;
+            writes -= writeChunk;
+        }
+    }
+
+    /**
+     * Write out the rest of the trace and close the file.
+     * @throws IOException if the file could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            ensureSpace();
+            buffer[position++] = (byte) OP_END;
+            long count = operationCount;
+            while((count & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((count & 0x7F) | 0x80);
+                count >>>= 7;
+            }
+            buffer[position++] = (byte) count;
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void event(int op, int[] first, int[] second) {
+        ensureSpace();
+        int header = op;
+        if(first != main)
+            header |= FIRST_AUX;
+        if(second != null && second != main)
+            header |= SECOND_AUX;
+        buffer[position++] = (byte) header;
+        operationCount++;
+    }
+
+    private void index(int i) {
+        signed(i - lastIndex);
+        lastIndex = i;
+    }
+
+    private void value(int value) {
+        signed(value - lastValue);
+        lastValue = value;
+    }
+
+    private void signed(int value) {
+        unsigned((value << 1) ^ (value >> 31));
+    }
+
+    private void unsigned(int value) {
+        while((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void ensureSpace() {
+        if(position > BUFFER_SIZE - MAX_EVENT_SIZE)
+            flush();
+    }
+
+    private void flush() {
+        wrapped.clear().limit(position);
+        try {
+            writeFully(channel, wrapped);
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        position = 0;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining())
+            channel.write(buffer);
+    }
+}
@@ -1,8 +1,41 @@
 package wallacewatler.sortingvisualizer;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 final class Util {
+    /**
+     * @return new instances of the algorithms that come with the library
+     */
+    public static List<Algorithm> builtInAlgorithms() {
+        final List<Algorithm> algorithms = new ArrayList<>();
+        final int threads = Runtime.getRuntime().availableProcessors();
+        algorithms.add(new AmericanFlagSort(8));
+        algorithms.add(new BinaryQuickSort());
+        algorithms.add(new BubbleSort());
+        algorithms.add(new CombSort(1.3));
+        algorithms.add(new CountingSort());
+        algorithms.add(new DualPivotQuickSort(16));
+        algorithms.add(new ExternalMergeSort(64, 4));
+        algorithms.add(new InsertionSort());
+        algorithms.add(new IntroSort(16));
+        algorithms.add(new KeyedMergeSort(KeyedAlgorithm.KeyType.DOUBLE));
+        algorithms.add(new KeyedQuickSort(KeyedAlgorithm.KeyType.LONG));
+        algorithms.add(new LsdRadixSort(8));
+        algorithms.add(new MsdRadixSort(8));
+        algorithms.add(new ParallelMergeSort(threads, 1 << 12));
+        algorithms.add(new ParallelQuickSort(threads, 1 << 12));
+        algorithms.add(new ParallelSampleSort(threads, 4, 1 << 12));
+        algorithms.add(new PdqSort(24, 128));
+        algorithms.add(new QuickInsertSort(10));
+        algorithms.add(new QuickShellSort(100, 2.25));
+        algorithms.add(new QuickSort());
+        algorithms.add(new SelectionSort());
+        algorithms.add(new ShellSort(2.25));
+        return algorithms;
+    }
+
     public static void reverse(int[] arr) {
         for(int i = 0; i < arr.length / 2; i++) {
             swap(arr, i, arr.length - 1 - i);
@@ -0,0 +1,49 @@
+package wallacewatler.sortingvisualizer;
+
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * Runs every built-in algorithm on every standard input distribution, at sizes from empty to large enough for the
+ * parallel algorithms to fork, and checks that each leaves its array sorted.
+ */
+class AlgorithmCorrectnessTest {
+    private static final int[] SIZES = {0, 1, 2, 17, 10_000};
+    private static final long SEED = 5;
+    /** Generous for the quadratic algorithms at the largest size, but short enough to catch one that never finishes. */
+    private static final Duration TIME_LIMIT = Duration.ofSeconds(60);
+
+    @TestFactory
+    List<DynamicTest> sortsEveryDistribution() {
+        final List<DynamicTest> tests = new ArrayList<>();
+        for(Algorithm algorithm : Util.builtInAlgorithms()) {
+            for(InputDistribution distribution : InputDistributions.standard()) {
+                tests.add(DynamicTest.dynamicTest(algorithm.name + ", " + distribution.label(),
+                        () -> assertTimeoutPreemptively(TIME_LIMIT, () -> assertSorts(algorithm, distribution))));
+            }
+        }
+        return tests;
+    }
+
+    private static void assertSorts(Algorithm algorithm, InputDistribution distribution) {
+        for(int n : SIZES) {
+            final int[] arr = new int[n];
+            distribution.generate(arr, SEED);
+            final int[] expected = arr.clone();
+            Arrays.sort(expected);
+
+            algorithm.reset();
+            algorithm.setUnthrottled(true);
+            algorithm.run(arr);
+            assertArrayEquals(expected, arr, "n = " + n);
+        }
+    }
+}
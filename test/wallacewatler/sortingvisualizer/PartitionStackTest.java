@@ -0,0 +1,88 @@
+package wallacewatler.sortingvisualizer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartitionStackTest {
+    @Test
+    void popsTheSmallerPartitionFirst() {
+        final PartitionStack stack = new PartitionStack();
+        stack.pushPartitions(0, 2, 9);
+        assertPops(stack, 0, 2);
+        assertPops(stack, 3, 9);
+        assertFalse(stack.pop());
+
+        stack.pushPartitions(0, 6, 9);
+        assertPops(stack, 7, 9);
+        assertPops(stack, 0, 6);
+        assertFalse(stack.pop());
+    }
+
+    @Test
+    void skipsPartitionsOfFewerThanTwoElements() {
+        final PartitionStack stack = new PartitionStack();
+        stack.push(4, 4);
+        stack.push(5, 4);
+        assertFalse(stack.pop());
+
+        stack.pushPartitions(0, 0, 5);
+        assertPops(stack, 1, 5);
+        assertFalse(stack.pop());
+    }
+
+    @Test
+    void unboundedPartitionsIgnoreValueBounds() {
+        final PartitionStack stack = new PartitionStack();
+        stack.push(0, 9);
+        assertPops(stack, 0, 9);
+        stack.pushPartitions(0, 4, 9);
+        assertPops(stack, 5, 9);
+        assertPops(stack, 0, 4);
+        assertFalse(stack.pop());
+    }
+
+    @Test
+    void narrowsTheBoundsOfBothPartitions() {
+        final PartitionStack stack = new PartitionStack();
+        stack.pushPartitions(0, 3, 9, 10, 50, 90);
+        assertPops(stack, 0, 3, 10, 50);
+        assertPops(stack, 4, 9, 51, 90);
+        assertFalse(stack.pop());
+    }
+
+    @Test
+    void skipsPartitionsBoundedToASingleValue() {
+        final PartitionStack stack = new PartitionStack();
+        stack.pushPartitions(0, 3, 9, 7, 7, 8);
+        assertFalse(stack.pop());
+
+        stack.pushPartitions(0, 3, 9, 6, 7, 9);
+        assertPops(stack, 0, 3, 6, 7);
+        assertPops(stack, 4, 9, 8, 9);
+        assertFalse(stack.pop());
+    }
+
+    @Test
+    void holdsThePartitionsOfTheLargestRange() {
+        final PartitionStack stack = new PartitionStack();
+        stack.push(0, Integer.MAX_VALUE - 1);
+        // Splitting the smaller partition every time leaves one larger partition on the stack per halving
+        for(int k = 0; k < 2 * Integer.SIZE && stack.pop(); k++)
+            stack.pushPartitions(stack.low, stack.low + (stack.high - stack.low) / 2 - 1, stack.high);
+    }
+
+    private static void assertPops(PartitionStack stack, int low, int high) {
+        assertTrue(stack.pop());
+        assertEquals(low, stack.low);
+        assertEquals(high, stack.high);
+    }
+
+    private static void assertPops(PartitionStack stack, int low, int high, int min, int max) {
+        assertPops(stack, low, high);
+        assertEquals(min, stack.min);
+        assertEquals(max, stack.max);
+    }
+}